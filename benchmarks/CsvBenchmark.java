@@ -0,0 +1,163 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.enums.TaskType;
+import main.java.ru.practicum.tasktracker.managers.TaskCsv;
+import main.java.ru.practicum.tasktracker.managers.TaskCsvReader;
+import main.java.ru.practicum.tasktracker.tasks.Epic;
+import main.java.ru.practicum.tasktracker.tasks.Subtask;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Сравнение записи и чтения файла задач: прежний способ (String.format на строку,
+// Files.readAllLines и String.split) и потоковый кодек TaskCsv/TaskCsvReader.
+// Запуск: java ... CsvBenchmark [число строк], по умолчанию 300000
+public class CsvBenchmark {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        List<Task> tasks = newTasks(size);
+        File file = File.createTempFile("csv-benchmark", ".csv");
+        file.deleteOnExit();
+
+        System.out.printf("%10s %-10s %12s %12s %10s%n", "строк", "способ", "запись, мс",
+                "чтение, мс", "МБ");
+        for (int round = 0; round < ROUNDS; round++) {
+            benchmarkLegacy(tasks, file);
+            benchmarkCodec(tasks, file);
+        }
+    }
+
+    // Треть - задачи, треть - подзадачи, на каждые 100 подзадач один эпик
+    private static List<Task> newTasks(int size) {
+        List<Task> tasks = new ArrayList<>(size);
+        int epicId = 0;
+        for (int i = 1; i <= size; i++) {
+            LocalDateTime start = BASE.plusMinutes(30L * i);
+            if (i % 100 == 1) {
+                epicId = i;
+                tasks.add(new Epic(i, "Эпик " + i, "Описание эпика", Status.NEW));
+            } else if (i % 3 == 0) {
+                tasks.add(new Task(i, "Задача " + i, "Описание задачи", Status.IN_PROGRESS,
+                        Duration.ofMinutes(15), start));
+            } else {
+                tasks.add(new Subtask(i, "Подзадача " + i, "Описание подзадачи", Status.DONE,
+                        Duration.ofMinutes(15), start, epicId));
+            }
+        }
+        return tasks;
+    }
+
+    private static void benchmarkLegacy(List<Task> tasks, File file) throws IOException {
+        long started = System.nanoTime();
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(),
+                StandardCharsets.UTF_8)) {
+            writer.write(TaskCsv.HEADER + "\n");
+            for (Task task : tasks) {
+                writer.write(legacyToString(task) + "\n");
+            }
+        }
+        long writeMillis = (System.nanoTime() - started) / 1_000_000;
+
+        started = System.nanoTime();
+        List<String> lines = Files.readAllLines(file.toPath());
+        List<Task> loaded = new ArrayList<>(lines.size());
+        for (int i = 1; i < lines.size(); i++) {
+            loaded.add(legacyFromString(lines.get(i)));
+        }
+        long readMillis = (System.nanoTime() - started) / 1_000_000;
+
+        report(loaded.size(), "прежний", writeMillis, readMillis, file);
+    }
+
+    private static void benchmarkCodec(List<Task> tasks, File file) throws IOException {
+        long started = System.nanoTime();
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(),
+                StandardCharsets.UTF_8)) {
+            StringBuilder row = new StringBuilder(128);
+            writer.write(TaskCsv.HEADER);
+            writer.write('\n');
+            for (Task task : tasks) {
+                row.setLength(0);
+                TaskCsv.append(row, task);
+                row.append('\n');
+                writer.append(row);
+            }
+        }
+        long writeMillis = (System.nanoTime() - started) / 1_000_000;
+
+        started = System.nanoTime();
+        List<Task> loaded = new ArrayList<>();
+        try (TaskCsvReader reader = new TaskCsvReader(Files.newBufferedReader(file.toPath(),
+                StandardCharsets.UTF_8))) {
+            reader.skip();
+            Task task;
+            while ((task = reader.next()) != null) {
+                loaded.add(task);
+            }
+        }
+        long readMillis = (System.nanoTime() - started) / 1_000_000;
+
+        report(loaded.size(), "TaskCsv", writeMillis, readMillis, file);
+    }
+
+    private static void report(int size, String name, long writeMillis, long readMillis,
+            File file) {
+        System.out.printf("%10d %-10s %12d %12d %10.1f%n", size, name, writeMillis, readMillis,
+                file.length() / 1_048_576.0);
+    }
+
+    // Прежний FileBackedTaskManager.toString
+    private static String legacyToString(Task task) {
+        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+        String startTimeStr =
+                task.getStartTime() != null ? task.getStartTime().format(formatter) : "null";
+        String durationStr =
+                task.getDuration() != null ? String.valueOf(task.getDuration().toMinutes())
+                        : "null";
+
+        if (task instanceof Subtask subtask) {
+            return String.format("%d,SUBTASK,%s,%s,%s,%s,%s,%d", subtask.getId(),
+                    subtask.getTitle(), subtask.getStatus(), subtask.getDescription(),
+                    durationStr, startTimeStr, subtask.getEpicId());
+        } else if (task instanceof Epic) {
+            return String.format("%d,EPIC,%s,%s,%s,%s,%s,", task.getId(), task.getTitle(),
+                    task.getStatus(), task.getDescription(), durationStr, startTimeStr);
+        } else {
+            return String.format("%d,TASK,%s,%s,%s,%s,%s,", task.getId(), task.getTitle(),
+                    task.getStatus(), task.getDescription(), durationStr, startTimeStr);
+        }
+    }
+
+    // Прежний FileBackedTaskManager.fromString
+    private static Task legacyFromString(String value) {
+        String[] fields = value.split(",");
+        int id = Integer.parseInt(fields[0]);
+        TaskType type = TaskType.valueOf(fields[1]);
+        String name = fields[2];
+        Status status = Status.valueOf(fields[3]);
+        String description = fields[4];
+        Duration duration =
+                "null".equals(fields[5]) ? null : Duration.ofMinutes(Long.parseLong(fields[5]));
+        LocalDateTime startTime = "null".equals(fields[6]) ? null : LocalDateTime.parse(fields[6]);
+
+        return switch (type) {
+            case TASK -> new Task(id, name, description, status, duration, startTime);
+            case EPIC -> new Epic(id, name, description, status);
+            case SUBTASK -> new Subtask(id, name, description, status, duration, startTime,
+                    Integer.parseInt(fields[7]));
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import main.java.ru.practicum.tasktracker.collections.IntMap;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Сравнение занимаемой памяти HashMap<Integer, Task> и IntMap<Task> без учета самих задач.
+// Запуск: java -Xmx2g ... MemoryBenchmark [число записей], по умолчанию 1000000
+public class MemoryBenchmark {
+
+    // Удерживает измеряемую коллекцию, чтобы сборщик мусора не освободил ее во время замера
+    private static Object retained;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        Task[] tasks = new Task[size];
+        for (int i = 0; i < size; i++) {
+            tasks[i] = new Task("Задача", "Описание");
+        }
+
+        long before = usedMemory();
+        Map<Integer, Task> hashMap = new HashMap<>();
+        for (Task task : tasks) {
+            hashMap.put(task.getId(), task);
+        }
+        retained = hashMap;
+        report("HashMap<Integer, Task>", size, usedMemory() - before);
+        retained = null;
+        hashMap = null;
+
+        before = usedMemory();
+        IntMap<Task> intMap = new IntMap<>();
+        for (Task task : tasks) {
+            intMap.put(task.getId(), task);
+        }
+        retained = intMap;
+        report("IntMap<Task>", size, usedMemory() - before);
+        retained = null;
+    }
+
+    private static void report(String name, int size, long bytes) {
+        System.out.printf("%-24s %10d записей %8.1f МБ %6.1f байт/запись%n", name, size,
+                bytes / 1024.0 / 1024.0, (double) bytes / size);
+    }
+
+    private static long usedMemory() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
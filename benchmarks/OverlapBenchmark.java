@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import main.java.ru.practicum.tasktracker.managers.Managers;
+import main.java.ru.practicum.tasktracker.managers.TaskManager;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Сравнение способов проверки пересечений: полный перебор prioritizedTasks.stream().anyMatch,
+// дерево интервалов (Managers.getDefault) и календарный индекс (Managers.getCalendarTaskManager).
+// Запуск: java -Xmx3g ... OverlapBenchmark [размеры...], по умолчанию 10000 100000 1000000
+public class OverlapBenchmark {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final Duration SLOT = Duration.ofMinutes(15);
+    private static final int PROBES = 2_000;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[]{10_000, 100_000, 1_000_000};
+
+        System.out.printf("%10s %-22s %12s %14s%n", "задач", "способ", "загрузка, мс",
+                "проверка, нс");
+        for (int size : sizes) {
+            benchmarkStream(size);
+            benchmarkManager(size, "дерево интервалов", Managers::getDefault);
+            benchmarkManager(size, "календарь (15 мин)", () -> Managers.getCalendarTaskManager(15));
+        }
+    }
+
+    // Задачи по 15 минут с промежутками по 15 минут: i-я задача начинается в BASE + 30 * i минут
+    private static Task newTask(int index) {
+        return new Task("Задача " + index, "Описание", SLOT, BASE.plusMinutes(30L * index));
+    }
+
+    // Пробная задача занимает свободный промежуток после index-й задачи и ни с чем не пересекается
+    private static Task newProbe(int index) {
+        return new Task("Проба", "Описание", SLOT, BASE.plusMinutes(30L * index + 15));
+    }
+
+    private static void benchmarkStream(int size) {
+        long started = System.nanoTime();
+        TreeSet<Task> prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
+        for (int i = 0; i < size; i++) {
+            prioritizedTasks.add(newTask(i));
+        }
+        long loadMillis = (System.nanoTime() - started) / 1_000_000;
+
+        Random random = new Random(42);
+        int probes = Math.max(20, PROBES * 10_000 / size);
+        int overlaps = 0;
+        started = System.nanoTime();
+        for (int i = 0; i < probes; i++) {
+            Task probe = newProbe(random.nextInt(size));
+            LocalDateTime newStart = probe.getStartTime();
+            LocalDateTime newEnd = probe.getEndTime();
+            if (prioritizedTasks.stream().anyMatch(task -> task.getId() != probe.getId()
+                    && newStart.isBefore(task.getEndTime())
+                    && newEnd.isAfter(task.getStartTime()))) {
+                overlaps++;
+            }
+        }
+        long probeNanos = (System.nanoTime() - started) / probes;
+
+        report(size, "stream().anyMatch", loadMillis, probeNanos, overlaps);
+    }
+
+    private static void benchmarkManager(int size, String name, Supplier<TaskManager> factory) {
+        TaskManager taskManager = factory.get();
+        long started = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            taskManager.createTask(newTask(i));
+        }
+        long loadMillis = (System.nanoTime() - started) / 1_000_000;
+
+        // Каждая проба - полный путь записи: проверка, вставка и удаление задачи
+        Random random = new Random(42);
+        started = System.nanoTime();
+        for (int i = 0; i < PROBES; i++) {
+            Task probe = taskManager.createTask(newProbe(random.nextInt(size)));
+            taskManager.deleteTask(probe.getId());
+        }
+        long probeNanos = (System.nanoTime() - started) / PROBES;
+
+        report(size, name, loadMillis, probeNanos, 0);
+    }
+
+    private static void report(int size, String name, long loadMillis, long probeNanos,
+            int overlaps) {
+        if (overlaps != 0) {
+            throw new IllegalStateException("Пробные задачи не должны пересекаться: " + overlaps);
+        }
+        System.out.printf("%10d %-22s %12d %14d%n", size, name, loadMillis, probeNanos);
+    }
+}
@@ -0,0 +1,137 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.managers.BinarySnapshot;
+import main.java.ru.practicum.tasktracker.managers.FileBackedTaskManager;
+import main.java.ru.practicum.tasktracker.managers.ParallelSnapshotReader;
+import main.java.ru.practicum.tasktracker.managers.TaskCsvReader;
+import main.java.ru.practicum.tasktracker.tasks.Epic;
+import main.java.ru.practicum.tasktracker.tasks.Subtask;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Разбор снимка в одном потоке и по частям в ParallelSnapshotReader с разным числом потоков,
+// для CSV и двоичного формата, и время полного loadFromFile.
+// Запуск: java -Xmx4g ... ParallelLoadBenchmark [число задач], по умолчанию 1000000
+public class ParallelLoadBenchmark {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        File csv = File.createTempFile("parallel-load-benchmark", ".csv");
+        File binary = File.createTempFile("parallel-load-benchmark", ".bin");
+        csv.deleteOnExit();
+        binary.deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(csv);
+        List<Task> tasks = newTasks(size);
+        manager.createTasks(tasks.stream().filter(task -> task.getClass() == Task.class)
+                .toList());
+        manager.createEpics(tasks.stream().filter(Epic.class::isInstance)
+                .map(Epic.class::cast).toList());
+        manager.createSubtasks(tasks.stream().filter(Subtask.class::isInstance)
+                .map(Subtask.class::cast).toList());
+        BinarySnapshot.convertCsv(csv, binary);
+        tasks = null;
+        manager = null;
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.printf("ядер: %d%n%-8s %8s %12s%n", processors, "формат", "потоков",
+                "разбор, мс");
+        for (int round = 0; round < ROUNDS; round++) {
+            benchmarkSequential(size, "CSV", csv);
+            benchmarkSequential(size, "BINARY", binary);
+            for (int threads = 1; threads <= processors; threads *= 2) {
+                benchmarkParallel(size, "CSV", csv, threads);
+                benchmarkParallel(size, "BINARY", binary, threads);
+            }
+        }
+
+        System.out.printf("%-8s %12s%n", "формат", "загрузка, мс");
+        for (int round = 0; round < ROUNDS; round++) {
+            benchmarkLoad(size, "CSV", csv);
+            benchmarkLoad(size, "BINARY", binary);
+        }
+    }
+
+    // Треть - задачи, остальное - подзадачи, на каждые 100 задач один эпик
+    private static List<Task> newTasks(int size) {
+        List<Task> tasks = new ArrayList<>(size);
+        int epicId = 0;
+        for (int i = 1; i <= size; i++) {
+            LocalDateTime start = BASE.plusMinutes(30L * i);
+            if (i % 100 == 1) {
+                epicId = i;
+                tasks.add(new Epic(i, "Эпик " + i, "Описание эпика", Status.NEW));
+            } else if (i % 3 == 0) {
+                tasks.add(new Task(i, "Задача " + i, "Описание задачи", Status.IN_PROGRESS,
+                        Duration.ofMinutes(15), start));
+            } else {
+                tasks.add(new Subtask(i, "Подзадача " + i, "Описание подзадачи", Status.DONE,
+                        Duration.ofMinutes(15), start, epicId));
+            }
+        }
+        return tasks;
+    }
+
+    private static void benchmarkSequential(int size, String format, File file)
+            throws IOException {
+        long started = System.nanoTime();
+        int parsed = "BINARY".equals(format) ? BinarySnapshot.read(file).size() : parseCsv(file);
+        report(size, parsed, format, "-", started);
+    }
+
+    private static void benchmarkParallel(int size, String format, File file, int threads)
+            throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long started = System.nanoTime();
+            int parsed = ParallelSnapshotReader.read(file, pool).size();
+            report(size, parsed, format, String.valueOf(threads), started);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void benchmarkLoad(int size, String format, File file) {
+        long started = System.nanoTime();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(file);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        if (manager.getTasks().size() + manager.getEpics().size()
+                + manager.getSubtasks().size() != size) {
+            throw new IllegalStateException("Загружены не все задачи");
+        }
+        System.out.printf("%-8s %12d%n", format, millis);
+    }
+
+    private static void report(int size, int parsed, String format, String threads,
+            long started) {
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        if (parsed != size) {
+            throw new IllegalStateException("Разобраны не все задачи");
+        }
+        System.out.printf("%-8s %8s %12d%n", format, threads, millis);
+    }
+
+    private static int parseCsv(File file) throws IOException {
+        int count = 0;
+        try (TaskCsvReader reader = new TaskCsvReader(Files.newBufferedReader(file.toPath(),
+                StandardCharsets.UTF_8))) {
+            reader.skip();
+            while (reader.next() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,142 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import main.java.ru.practicum.tasktracker.enums.PersistenceMode;
+import main.java.ru.practicum.tasktracker.enums.SnapshotFormat;
+import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.managers.BinarySnapshot;
+import main.java.ru.practicum.tasktracker.managers.FileBackedTaskManager;
+import main.java.ru.practicum.tasktracker.managers.ParallelSnapshotReader;
+import main.java.ru.practicum.tasktracker.managers.TaskCsvReader;
+import main.java.ru.practicum.tasktracker.tasks.Epic;
+import main.java.ru.practicum.tasktracker.tasks.Subtask;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Сравнение форматов снимка, в том числе сжатых: размер файла, время записи снимка менеджером,
+// время разбора файла в одном потоке (для сжатых - вместе с распаковкой) и время полного
+// loadFromFile. Запуск: java -Xmx4g ... SnapshotBenchmark [число задач], по умолчанию 1000000
+public class SnapshotBenchmark {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<Task> tasks = newTasks(size);
+        File csv = File.createTempFile("snapshot-benchmark", ".csv");
+        csv.deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(csv);
+        manager.createTasks(tasks.stream().filter(task -> task.getClass() == Task.class)
+                .toList());
+        manager.createEpics(tasks.stream().filter(Epic.class::isInstance)
+                .map(Epic.class::cast).toList());
+        manager.createSubtasks(tasks.stream().filter(Subtask.class::isInstance)
+                .map(Subtask.class::cast).toList());
+
+        manager = null;
+        tasks = null;
+
+        // Снимок в остальных форматах пишет менеджер, загруженный из CSV с указанием формата
+        Map<SnapshotFormat, File> files = new EnumMap<>(SnapshotFormat.class);
+        files.put(SnapshotFormat.CSV, csv);
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            if (format != SnapshotFormat.CSV) {
+                File file = File.createTempFile("snapshot-benchmark", "." + format);
+                file.deleteOnExit();
+                Files.copy(csv.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                FileBackedTaskManager converted = FileBackedTaskManager.loadFromFile(file,
+                        PersistenceMode.SNAPSHOT, format);
+                converted.updateTask(converted.getTasks().getFirst());
+                files.put(format, file);
+            }
+        }
+
+        System.out.printf("%10s %-15s %10s %12s %12s %12s%n", "задач", "формат", "МБ",
+                "запись, мс", "разбор, мс", "загрузка, мс");
+        for (int round = 0; round < ROUNDS; round++) {
+            for (Map.Entry<SnapshotFormat, File> entry : files.entrySet()) {
+                benchmark(size, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    // Треть - задачи, остальное - подзадачи, на каждые 100 задач один эпик
+    private static List<Task> newTasks(int size) {
+        List<Task> tasks = new ArrayList<>(size);
+        int epicId = 0;
+        for (int i = 1; i <= size; i++) {
+            LocalDateTime start = BASE.plusMinutes(30L * i);
+            if (i % 100 == 1) {
+                epicId = i;
+                tasks.add(new Epic(i, "Эпик " + i, "Описание эпика", Status.NEW));
+            } else if (i % 3 == 0) {
+                tasks.add(new Task(i, "Задача " + i, "Описание задачи", Status.IN_PROGRESS,
+                        Duration.ofMinutes(15), start));
+            } else {
+                tasks.add(new Subtask(i, "Подзадача " + i, "Описание подзадачи", Status.DONE,
+                        Duration.ofMinutes(15), start, epicId));
+            }
+        }
+        return tasks;
+    }
+
+    private static void benchmark(int size, SnapshotFormat format, File file)
+            throws IOException {
+        long started = System.nanoTime();
+        int parsed = switch (format) {
+            case CSV -> parseCsv(file);
+            case BINARY -> BinarySnapshot.read(file).size();
+            case CSV_DEFLATE, BINARY_DEFLATE -> parseCompressed(file);
+        };
+        long parseMillis = (System.nanoTime() - started) / 1_000_000;
+
+        started = System.nanoTime();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(file);
+        long loadMillis = (System.nanoTime() - started) / 1_000_000;
+        if (parsed != size || manager.getTasks().size() + manager.getEpics().size()
+                + manager.getSubtasks().size() != size) {
+            throw new IllegalStateException("Загружены не все задачи");
+        }
+
+        // Любое изменение в режиме SNAPSHOT перезаписывает снимок целиком
+        started = System.nanoTime();
+        manager.updateTask(manager.getTasks().getFirst());
+        long writeMillis = (System.nanoTime() - started) / 1_000_000;
+
+        System.out.printf("%10d %-15s %10.1f %12d %12d %12d%n", size, format,
+                file.length() / 1_048_576.0, writeMillis, parseMillis, loadMillis);
+    }
+
+    private static int parseCompressed(File file) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            return ParallelSnapshotReader.read(file, pool).size();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int parseCsv(File file) throws IOException {
+        int count = 0;
+        try (TaskCsvReader reader = new TaskCsvReader(Files.newBufferedReader(file.toPath(),
+                StandardCharsets.UTF_8))) {
+            reader.skip();
+            while (reader.next() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,140 @@
+package main.java.ru.practicum.tasktracker.collections;
+
+import java.util.Arrays;
+
+// Хеш-таблица int -> int с открытой адресацией, как IntMap, но и значения хранятся в массиве
+// int без упаковки в Integer: около 11 байт на запись. Значения - неотрицательные числа
+// (номера ячеек, позиции); пустая ячейка обозначается -1 в массиве значений, и для
+// отсутствующего ключа get и remove возвращают -1.
+public class IntIntMap {
+
+    public static final int MISSING = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IntIntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntIntMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = emptyValues(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Увеличение таблицы заранее, чтобы вставка expectedSize записей обошлась без перестроек
+    public void ensureCapacity(int expectedSize) {
+        int capacity = values.length;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        if (capacity > values.length) {
+            resize(capacity);
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return values[indexOf(key)] != MISSING;
+    }
+
+    public int get(int key) {
+        return values[indexOf(key)];
+    }
+
+    public int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Значение не может быть отрицательным: " + value);
+        }
+
+        int index = indexOf(key);
+        int previous = values[index];
+        keys[index] = key;
+        values[index] = value;
+        if (previous == MISSING && ++size > values.length * 3 / 4) {
+            resize(values.length << 1);
+        }
+        return previous;
+    }
+
+    public int remove(int key) {
+        int index = indexOf(key);
+        int previous = values[index];
+        if (previous != MISSING) {
+            deleteAt(index);
+            size--;
+        }
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(values, MISSING);
+        size = 0;
+    }
+
+    // Индекс ячейки с ключом key или первой пустой ячейки на его пути
+    private int indexOf(int key) {
+        int mask = values.length - 1;
+        int index = hash(key) & mask;
+        while (values[index] != MISSING && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    // Удаление со сдвигом следующих записей цепочки назад, чтобы не оставлять "надгробий"
+    private void deleteAt(int index) {
+        int mask = values.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (values[next] != MISSING) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = MISSING;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = emptyValues(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != MISSING) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private static int[] emptyValues(int capacity) {
+        int[] values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        return values;
+    }
+
+    // То же перемешивание, что и в IntMap
+    private static int hash(int key) {
+        return key ^ (key >>> 16);
+    }
+}
@@ -0,0 +1,94 @@
+package main.java.ru.practicum.tasktracker.collections;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Множество int на отсортированном массиве без упаковки в Integer.
+// Поиск - двоичный, O(log n). Добавление возрастающих значений (обычный случай для ID) - O(1),
+// прочие вставки и удаления сдвигают хвост массива одним System.arraycopy.
+public class IntSortedSet {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] values = EMPTY;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    // Значение по порядковому номеру в порядке возрастания; позволяет обходить множество без аллокаций
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return values[index];
+    }
+
+    // Порядковый номер первого значения, большего value; size(), если таких нет
+    public int indexAfter(int value) {
+        int index = indexOf(value);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    public boolean add(int value) {
+        int insertAt = size;
+        if (size > 0 && values[size - 1] >= value) {
+            int index = indexOf(value);
+            if (index >= 0) {
+                return false;
+            }
+            insertAt = -index - 1;
+        }
+
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int index = indexOf(value);
+        if (index < 0) {
+            return false;
+        }
+
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private int indexOf(int value) {
+        return Arrays.binarySearch(values, 0, size, value);
+    }
+}
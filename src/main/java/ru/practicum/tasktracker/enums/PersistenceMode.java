@@ -0,0 +1,10 @@
+package main.java.ru.practicum.tasktracker.enums;
+
+public enum PersistenceMode {
+    // Полная перезапись файла после каждого изменения
+    SNAPSHOT,
+    // Дозапись изменений в журнал с периодическим сжатием журнала в снимок
+    JOURNAL,
+    // Отложенная запись снимка в фоне, не чаще раза в заданный интервал
+    WRITE_BEHIND
+}
@@ -0,0 +1,16 @@
+package main.java.ru.practicum.tasktracker.enums;
+
+public enum SnapshotFormat {
+    // Текстовый CSV, читаемый человеком
+    CSV,
+    // Компактный двоичный формат с контрольными суммами блоков
+    BINARY,
+    // CSV, сжатый независимыми блоками Deflate
+    CSV_DEFLATE,
+    // Двоичный формат, сжатый независимыми блоками Deflate
+    BINARY_DEFLATE;
+
+    public boolean isCompressed() {
+        return this == CSV_DEFLATE || this == BINARY_DEFLATE;
+    }
+}
@@ -0,0 +1,8 @@
+package main.java.ru.practicum.tasktracker.exceptions;
+
+public class TransactionException extends RuntimeException {
+
+    public TransactionException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,382 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.enums.TaskType;
+import main.java.ru.practicum.tasktracker.tasks.Epic;
+import main.java.ru.practicum.tasktracker.tasks.Subtask;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Двоичный формат снимка задач. Файл начинается с сигнатуры "TKSB" и номера версии, за ними
+// идут блоки до BLOCK_RECORDS задач: заголовок (длина данных, число задач, CRC32 данных) и
+// данные. Блок с нулевой длиной завершает файл, поэтому обрезанный файл не примется за целый.
+// Данные блока - таблица строк (названия и описания без повторов, длина varint + UTF-8)
+// и записи задач: байт с типом, статусом и флагами, ID как разность с предыдущим (varint),
+// номера строк, длительность в минутах и время начала в минутах от эпохи как разность
+// с предыдущим временем блока. Время с секундами пишется в секундах и наносекундах.
+// Блоки независимы друг от друга: каждый можно проверить и разобрать отдельно.
+public final class BinarySnapshot {
+
+    static final byte[] MAGIC = {'T', 'K', 'S', 'B'};
+    static final int VERSION = 1;
+    static final int BLOCK_RECORDS = 4096;
+    static final int BLOCK_HEADER_SIZE = 12;
+
+    private static final int HAS_DURATION = 1 << 4;
+    private static final int HAS_START = 1 << 5;
+    private static final int PRECISE_START = 1 << 6;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private BinarySnapshot() {
+    }
+
+    // Проверка сигнатуры в начале файла
+    public static boolean isBinary(File file) throws IOException {
+        if (!file.exists() || file.length() < MAGIC.length) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length);
+            readFully(channel, header);
+            return Arrays.equals(header.array(), MAGIC);
+        }
+    }
+
+    // Проверка сигнатуры в начале уже прочитанного файла
+    static boolean isBinary(byte[] content) {
+        return content.length >= MAGIC.length
+                && Arrays.equals(content, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    // Полное содержимое файла снимка для задач в порядке обхода
+    public static ByteBuffer encode(Collection<? extends Task> tasks) {
+        Output out = new Output(Math.max(64, tasks.size() * 24));
+        out.writeBytes(MAGIC, 0, MAGIC.length);
+        out.writeByte(VERSION);
+
+        BlockEncoder block = new BlockEncoder();
+        for (Task task : tasks) {
+            block.add(task);
+            if (block.count == BLOCK_RECORDS) {
+                block.flush(out);
+            }
+        }
+        block.flush(out);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeInt(0);
+        return ByteBuffer.wrap(out.bytes, 0, out.size);
+    }
+
+    public static List<Task> read(File file) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            readHeader(channel);
+            ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+            ByteBuffer payload = ByteBuffer.allocate(0);
+            while (true) {
+                header.clear();
+                readFully(channel, header);
+                header.flip();
+                int length = header.getInt();
+                int count = header.getInt();
+                int crc = header.getInt();
+                if (length == 0) {
+                    return tasks;
+                }
+
+                if (payload.capacity() < length) {
+                    payload = ByteBuffer.allocate(length);
+                }
+                payload.clear().limit(length);
+                readFully(channel, payload);
+                payload.flip();
+                decodeBlock(payload, count, crc, tasks);
+            }
+        }
+    }
+
+    // Запись снимка в двоичном формате по существующему CSV-файлу
+    public static void convertCsv(File csv, File binary) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        try (TaskCsvReader reader = new TaskCsvReader(Files.newBufferedReader(csv.toPath(),
+                StandardCharsets.UTF_8))) {
+            reader.skip();
+            Task task;
+            while ((task = reader.next()) != null) {
+                tasks.add(task);
+            }
+        }
+
+        ByteBuffer content = encode(tasks);
+        try (FileChannel channel = FileChannel.open(binary.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+        }
+    }
+
+    static void readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 1);
+        readFully(channel, header);
+        readHeader(header.flip());
+    }
+
+    // Проверка сигнатуры и версии; позиция буфера переходит к первому блоку
+    static void readHeader(ByteBuffer buffer) {
+        if (buffer.remaining() < MAGIC.length + 1) {
+            throw new IllegalArgumentException("Файл не является двоичным снимком задач");
+        }
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IllegalArgumentException("Файл не является двоичным снимком задач");
+        }
+        int version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Неподдерживаемая версия снимка: " + version);
+        }
+    }
+
+    // Разбор данных одного блока с проверкой контрольной суммы
+    static void decodeBlock(ByteBuffer payload, int count, int crc, List<Task> tasks) {
+        CRC32 checksum = new CRC32();
+        checksum.update(payload.duplicate());
+        if ((int) checksum.getValue() != crc) {
+            throw new IllegalArgumentException("Контрольная сумма блока снимка не сходится");
+        }
+
+        int stringCount = (int) readVarLong(payload);
+        String[] strings = new String[stringCount];
+        byte[] array = payload.array();
+        for (int i = 0; i < stringCount; i++) {
+            int length = (int) readVarLong(payload);
+            int position = payload.position();
+            strings[i] = new String(array, payload.arrayOffset() + position, length,
+                    StandardCharsets.UTF_8);
+            payload.position(position + length);
+        }
+
+        int id = 0;
+        long start = 0;
+        for (int i = 0; i < count; i++) {
+            int flags = payload.get() & 0xFF;
+            TaskType type = TYPES[flags & 0x3];
+            Status status = STATUSES[(flags >>> 2) & 0x3];
+            id += (int) readSignedVarLong(payload);
+            String title = string(strings, readVarLong(payload));
+            String description = string(strings, readVarLong(payload));
+            Duration duration = (flags & HAS_DURATION) != 0
+                    ? Duration.ofMinutes(readSignedVarLong(payload)) : null;
+            LocalDateTime startTime = null;
+            if ((flags & PRECISE_START) != 0) {
+                startTime = LocalDateTime.ofEpochSecond(readSignedVarLong(payload),
+                        (int) readVarLong(payload), ZoneOffset.UTC);
+            } else if ((flags & HAS_START) != 0) {
+                start += readSignedVarLong(payload);
+                startTime = LocalDateTime.ofEpochSecond(start * 60, 0, ZoneOffset.UTC);
+            }
+
+            tasks.add(switch (type) {
+                case TASK -> new Task(id, title, description, status, duration, startTime);
+                case EPIC -> new Epic(id, title, description, status);
+                case SUBTASK -> new Subtask(id, title, description, status, duration, startTime,
+                        (int) readVarLong(payload));
+            });
+        }
+        if (payload.hasRemaining()) {
+            throw new IllegalArgumentException("Лишние данные в блоке снимка");
+        }
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IllegalArgumentException("Снимок обрывается до конца файла");
+            }
+        }
+    }
+
+    private static String string(String[] strings, long index) {
+        return index == 0 ? null : strings[(int) index - 1];
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Некорректное число в снимке");
+    }
+
+    private static long readSignedVarLong(ByteBuffer buffer) {
+        long value = readVarLong(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Кодирование одного блока: строки собираются в таблицу по мере добавления задач
+    private static class BlockEncoder {
+
+        private final Map<String, Integer> stringIndex = new HashMap<>();
+        private final Output strings = new Output(4096);
+        private final Output records = new Output(4096);
+        private final CRC32 checksum = new CRC32();
+        private int count;
+        private int previousId;
+        private long previousStart;
+
+        void add(Task task) {
+            int flags = task.getType().ordinal() | task.getStatus().ordinal() << 2;
+            Duration duration = task.getDuration();
+            LocalDateTime startTime = task.getStartTime();
+            // Время эпика выводится из подзадач и в снимок не пишется
+            if (task.getType() == TaskType.EPIC) {
+                duration = null;
+                startTime = null;
+            }
+            if (duration != null) {
+                flags |= HAS_DURATION;
+            }
+            if (startTime != null) {
+                flags |= startTime.getSecond() == 0 && startTime.getNano() == 0
+                        ? HAS_START : PRECISE_START;
+            }
+
+            records.writeByte(flags);
+            records.writeSignedVarLong((long) task.getId() - previousId);
+            previousId = task.getId();
+            records.writeVarLong(indexOf(task.getTitle()));
+            records.writeVarLong(indexOf(task.getDescription()));
+            if (duration != null) {
+                records.writeSignedVarLong(duration.toMinutes());
+            }
+            if ((flags & PRECISE_START) != 0) {
+                records.writeSignedVarLong(startTime.toEpochSecond(ZoneOffset.UTC));
+                records.writeVarLong(startTime.getNano());
+            } else if (startTime != null) {
+                long start = startTime.toEpochSecond(ZoneOffset.UTC) / 60;
+                records.writeSignedVarLong(start - previousStart);
+                previousStart = start;
+            }
+            if (task instanceof Subtask subtask) {
+                records.writeVarLong(subtask.getEpicId());
+            }
+            count++;
+        }
+
+        // Номер строки в таблице блока, начиная с 1; 0 - null
+        private int indexOf(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer index = stringIndex.get(value);
+            if (index == null) {
+                index = stringIndex.size() + 1;
+                stringIndex.put(value, index);
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                strings.writeVarLong(bytes.length);
+                strings.writeBytes(bytes, 0, bytes.length);
+            }
+            return index;
+        }
+
+        void flush(Output out) {
+            if (count == 0) {
+                return;
+            }
+
+            Output table = new Output(strings.size + 5);
+            table.writeVarLong(stringIndex.size());
+            checksum.reset();
+            checksum.update(table.bytes, 0, table.size);
+            checksum.update(strings.bytes, 0, strings.size);
+            checksum.update(records.bytes, 0, records.size);
+
+            out.writeInt(table.size + strings.size + records.size);
+            out.writeInt(count);
+            out.writeInt((int) checksum.getValue());
+            out.writeBytes(table.bytes, 0, table.size);
+            out.writeBytes(strings.bytes, 0, strings.size);
+            out.writeBytes(records.bytes, 0, records.size);
+
+            stringIndex.clear();
+            strings.size = 0;
+            records.size = 0;
+            count = 0;
+            previousId = 0;
+            previousStart = 0;
+        }
+    }
+
+    // Растущий массив байт с записью чисел в порядке big-endian, как у ByteBuffer
+    private static class Output {
+
+        byte[] bytes;
+        int size;
+
+        Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        // Знаковые числа кодируются зигзагом, чтобы небольшие отрицательные были короткими
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeBytes(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + extra, bytes.length * 2));
+            }
+        }
+    }
+}
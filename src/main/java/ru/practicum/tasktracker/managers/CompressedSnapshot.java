@@ -0,0 +1,183 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Сжатие файла снимка независимыми блоками Deflate. Файл начинается с сигнатуры "TKSZ"
+// и номера версии, за ними идут блоки: заголовок (длина сжатых данных, длина исходных)
+// и данные в формате zlib, который сам проверяет контрольную сумму исходных данных.
+// Блок с нулевыми длинами завершает файл. Каждый блок сжат отдельно, поэтому по заголовкам
+// можно перейти к любому блоку, не распаковывая предыдущие, а блоки сжимаются и распаковываются
+// параллельно. Сжимается уже готовое содержимое снимка в формате CSV или BinarySnapshot.
+public final class CompressedSnapshot {
+
+    static final byte[] MAGIC = {'T', 'K', 'S', 'Z'};
+    static final int VERSION = 1;
+    static final int BLOCK_SIZE = 256 * 1024;
+    static final int BLOCK_HEADER_SIZE = 8;
+
+    // Скорость важнее степени сжатия: повторы в снимке сжимаются и на этом уровне
+    private static final int LEVEL = Deflater.BEST_SPEED;
+
+    private CompressedSnapshot() {
+    }
+
+    // Проверка сигнатуры в начале файла
+    public static boolean isCompressed(File file) throws IOException {
+        if (!file.exists() || file.length() < MAGIC.length) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length);
+            BinarySnapshot.readFully(channel, header);
+            return Arrays.equals(header.array(), MAGIC);
+        }
+    }
+
+    static boolean isCompressed(byte[] content) {
+        return content.length >= MAGIC.length
+                && Arrays.equals(content, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    // Сжатое содержимое; блоки сжимаются в общем пуле ForkJoinPool
+    public static ByteBuffer compress(ByteBuffer content) {
+        ByteBuffer source = content.duplicate();
+        List<ForkJoinTask<byte[]>> blocks = new ArrayList<>();
+        while (source.hasRemaining()) {
+            int length = Math.min(BLOCK_SIZE, source.remaining());
+            ByteBuffer block = source.slice(source.position(), length);
+            source.position(source.position() + length);
+            blocks.add(ForkJoinPool.commonPool().submit(() -> deflate(block)));
+        }
+
+        List<byte[]> compressed = new ArrayList<>(blocks.size());
+        int size = MAGIC.length + 1 + BLOCK_HEADER_SIZE;
+        for (ForkJoinTask<byte[]> block : blocks) {
+            byte[] data = block.join();
+            compressed.add(data);
+            size += BLOCK_HEADER_SIZE + data.length;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.put(MAGIC).put((byte) VERSION);
+        source = content.duplicate();
+        for (byte[] data : compressed) {
+            int length = Math.min(BLOCK_SIZE, source.remaining());
+            source.position(source.position() + length);
+            out.putInt(data.length).putInt(length).put(data);
+        }
+        out.putInt(0).putInt(0);
+        return out.flip();
+    }
+
+    // Исходное содержимое сжатого файла. Длины исходных блоков известны из заголовков,
+    // поэтому каждый блок распаковывается сразу на свое место в общем массиве
+    public static byte[] decompress(byte[] content, ForkJoinPool pool) {
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        if (!isCompressed(content) || content.length < MAGIC.length + 1) {
+            throw new IllegalArgumentException("Файл не является сжатым снимком задач");
+        }
+        buffer.position(MAGIC.length);
+        int version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Неподдерживаемая версия сжатого снимка: "
+                    + version);
+        }
+
+        List<int[]> blocks = new ArrayList<>();
+        long size = 0;
+        while (true) {
+            if (buffer.remaining() < BLOCK_HEADER_SIZE) {
+                throw new IllegalArgumentException("Снимок обрывается до конца файла");
+            }
+            int compressedLength = buffer.getInt();
+            int length = buffer.getInt();
+            if (compressedLength == 0) {
+                break;
+            }
+            if (compressedLength < 0 || compressedLength > buffer.remaining() || length < 0
+                    || length > BLOCK_SIZE) {
+                throw new IllegalArgumentException("Поврежден заголовок блока снимка");
+            }
+            blocks.add(new int[] {buffer.position(), compressedLength, (int) size, length});
+            buffer.position(buffer.position() + compressedLength);
+            size += length;
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Снимок слишком велик для распаковки");
+        }
+
+        byte[] result = new byte[(int) size];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(blocks.size());
+        for (int[] block : blocks) {
+            tasks.add(pool.submit(() -> inflate(content, block[0], block[1], result, block[2],
+                    block[3])));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return result;
+    }
+
+    private static byte[] deflate(ByteBuffer block) {
+        Deflater deflater = new Deflater(LEVEL);
+        try {
+            deflater.setInput(block);
+            deflater.finish();
+            byte[] out = new byte[block.remaining() + block.remaining() / 1000 + 64];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            return Arrays.copyOf(out, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void inflate(byte[] content, int offset, int compressedLength, byte[] result,
+            int resultOffset, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(content, offset, compressedLength);
+            // После заполнения блока поток должен закончиться: лишний байт означает, что
+            // данные длиннее заявленного
+            byte[] extra = new byte[1];
+            int inflated = 0;
+            while (!inflater.finished()) {
+                int remaining = length - inflated;
+                int count = remaining > 0
+                        ? inflater.inflate(result, resultOffset + inflated, remaining)
+                        : inflater.inflate(extra);
+                if (remaining == 0 && count > 0) {
+                    throw new IllegalArgumentException("Блок снимка длиннее заявленного");
+                }
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Блок снимка обрезан");
+                }
+                inflated += count;
+            }
+            if (inflated != length) {
+                throw new IllegalArgumentException("Блок снимка короче заявленного");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Блок снимка поврежден: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import main.java.ru.practicum.tasktracker.collections.IntSortedSet;
+import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.enums.TaskType;
+import main.java.ru.practicum.tasktracker.tasks.Epic;
+import main.java.ru.practicum.tasktracker.tasks.Subtask;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Потокобезопасный менеджер задач. Чтения выполняются параллельно под разделяемой блокировкой,
+// изменения - по одному под эксклюзивной, поэтому статусы эпиков, индекс по времени и проверка
+// пересечений всегда согласованы. Получение задачи по ID пишет в историю просмотров,
+// поэтому обращения к истории дополнительно упорядочены отдельным монитором.
+// Списки задач читаются без блокировок из последнего опубликованного среза TaskSnapshot,
+// который хранит неизменяемые копии задач: изменение задачи или подзадачи публикует копии
+// ее самой и затронутых эпиков.
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+
+    private final StampedLock lock = new StampedLock();
+    private final Object historyLock = new Object();
+    private volatile TaskSnapshot snapshot = TaskSnapshot.EMPTY;
+
+    // Согласованный срез хранилища на текущий момент; не блокирует и не копирует данные
+    public TaskSnapshot snapshot() {
+        return snapshot;
+    }
+
+    // Методы для простых задач
+    @Override
+    public List<Task> getTasks() {
+        return snapshot.getTasks();
+    }
+
+    @Override
+    public List<Task> getTasks(int afterId, int limit) {
+        return snapshot.getTasks(afterId, limit);
+    }
+
+    @Override
+    public void deleteTasks() {
+        write(() -> {
+            super.deleteTasks();
+            publish(snapshot.withoutTasks());
+            return null;
+        });
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return readWithHistory(() -> super.getTask(id));
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        return write(() -> {
+            Task stored = super.createTask(task);
+            publish(snapshot.withTask(stored));
+            return stored;
+        });
+    }
+
+    @Override
+    public Task updateTask(Task task) {
+        return write(() -> {
+            Task stored = super.updateTask(task);
+            publish(snapshot.withTask(stored));
+            return stored;
+        });
+    }
+
+    @Override
+    public boolean deleteTask(int id) {
+        return write(() -> {
+            boolean removed = super.deleteTask(id);
+            if (removed) {
+                publish(snapshot.withoutTask(id));
+            }
+            return removed;
+        });
+    }
+
+    @Override
+    public List<Task> createTasks(Collection<Task> tasks) {
+        return write(() -> publishTasks(super.createTasks(tasks)));
+    }
+
+    @Override
+    public List<Task> updateTasks(Collection<Task> tasks) {
+        return write(() -> publishTasks(super.updateTasks(tasks)));
+    }
+
+    @Override
+    public int deleteTasks(Collection<Integer> ids) {
+        return write(() -> {
+            int removed = super.deleteTasks(ids);
+            TaskSnapshot next = snapshot;
+            for (int id : ids) {
+                next = next.withoutTask(id);
+            }
+            publish(next);
+            return removed;
+        });
+    }
+
+    // Методы для эпиков
+    @Override
+    public List<Epic> getEpics() {
+        return snapshot.getEpics();
+    }
+
+    @Override
+    public List<Epic> getEpics(int afterId, int limit) {
+        return snapshot.getEpics(afterId, limit);
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return readWithHistory(() -> super.getEpic(id));
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        return write(() -> {
+            Epic stored = super.createEpic(epic);
+            publish(snapshot.withEpic(stored));
+            return stored;
+        });
+    }
+
+    @Override
+    public List<Epic> createEpics(Collection<Epic> epics) {
+        return write(() -> {
+            List<Epic> stored = super.createEpics(epics);
+            TaskSnapshot next = snapshot;
+            for (Epic epic : stored) {
+                next = next.withEpic(epic);
+            }
+            publish(next);
+            return stored;
+        });
+    }
+
+    @Override
+    public Epic updateEpic(Epic epic) {
+        return write(() -> {
+            Epic stored = super.updateEpic(epic);
+            publish(snapshot.withEpic(stored));
+            return stored;
+        });
+    }
+
+    @Override
+    public boolean deleteEpic(int id) {
+        return write(() -> {
+            Epic epic = snapshot.getEpic(id);
+            boolean removed = super.deleteEpic(id);
+            if (removed) {
+                TaskSnapshot[] next = {snapshot.withoutEpic(id)};
+                epic.forEachSubtaskId(subtaskId -> next[0] = next[0].withoutSubtask(subtaskId));
+                publish(next[0]);
+            }
+            return removed;
+        });
+    }
+
+    // Методы для подзадач
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        return read(() -> super.getEpicSubtasks(epicId));
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return snapshot.getSubtasks();
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(int afterId, int limit) {
+        return snapshot.getSubtasks(afterId, limit);
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return readWithHistory(() -> super.getSubtask(id));
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        return write(() -> {
+            Subtask stored = super.createSubtask(subtask);
+            publishSubtasks(List.of(stored));
+            return stored;
+        });
+    }
+
+    @Override
+    public Subtask updateSubtask(Subtask subtask) {
+        return write(() -> {
+            Subtask stored = super.updateSubtask(subtask);
+            publishSubtasks(List.of(stored));
+            return stored;
+        });
+    }
+
+    @Override
+    public boolean deleteSubtask(int id) {
+        return write(() -> {
+            boolean removed = super.deleteSubtask(id);
+            if (removed) {
+                IntSortedSet epicIds = new IntSortedSet();
+                addEpicOf(id, epicIds);
+                publish(withEpics(snapshot.withoutSubtask(id), epicIds));
+            }
+            return removed;
+        });
+    }
+
+    @Override
+    public List<Subtask> createSubtasks(Collection<Subtask> subtasks) {
+        return write(() -> publishSubtasks(super.createSubtasks(subtasks)));
+    }
+
+    @Override
+    public List<Subtask> updateSubtasks(Collection<Subtask> subtasks) {
+        return write(() -> publishSubtasks(super.updateSubtasks(subtasks)));
+    }
+
+    @Override
+    public int deleteSubtasks(Collection<Integer> ids) {
+        return write(() -> {
+            int removed = super.deleteSubtasks(ids);
+            TaskSnapshot next = snapshot;
+            IntSortedSet epicIds = new IntSortedSet();
+            for (int id : ids) {
+                addEpicOf(id, epicIds);
+                next = next.withoutSubtask(id);
+            }
+            publish(withEpics(next, epicIds));
+            return removed;
+        });
+    }
+
+    // Действие транзакции выполняется под эксклюзивной блокировкой, поэтому обращаться
+    // из него к самому менеджеру нельзя - только к переданной транзакции
+    @Override
+    public void inTransaction(Consumer<TaskTransaction> action) {
+        write(() -> {
+            TaskSnapshot next = snapshot;
+            IntSortedSet epicIds = new IntSortedSet();
+            for (Map.Entry<Integer, Task> entry : commit(action).entrySet()) {
+                Task task = entry.getValue();
+                addEpicOf(entry.getKey(), epicIds);
+                if (task == null) {
+                    int id = entry.getKey();
+                    next = next.withoutTask(id).withoutEpic(id).withoutSubtask(id);
+                } else if (task instanceof Subtask subtask) {
+                    epicIds.add(subtask.getEpicId());
+                    next = next.withSubtask(subtask);
+                } else if (task instanceof Epic epic) {
+                    next = next.withEpic(epic);
+                } else {
+                    next = next.withTask(task);
+                }
+            }
+            publish(withEpics(next, epicIds));
+            return null;
+        });
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return readWithHistory(super::getHistory);
+    }
+
+    @Override
+    public List<Task> getHistory(int afterId, int limit) {
+        return readWithHistory(() -> super.getHistory(afterId, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return snapshot.getPrioritizedTasks();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(int afterId, int limit) {
+        return snapshot.getPrioritizedTasks(afterId, limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.getPrioritizedTasks(from, to));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int afterId,
+            int limit) {
+        return read(() -> super.getPrioritizedTasks(from, to, afterId, limit));
+    }
+
+    @Override
+    public List<Task> getNextTasks(LocalDateTime time, int limit) {
+        return read(() -> super.getNextTasks(time, limit));
+    }
+
+    @Override
+    public List<Task> getActiveTasks(LocalDateTime time) {
+        return read(() -> super.getActiveTasks(time));
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return read(() -> super.getTasksByStatus(status));
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status, TaskType type) {
+        return read(() -> super.getTasksByStatus(status, type));
+    }
+
+    @Override
+    public int countByStatus(Status status) {
+        return read(() -> super.countByStatus(status));
+    }
+
+    @Override
+    public int countByStatus(Status status, TaskType type) {
+        return read(() -> super.countByStatus(status, type));
+    }
+
+    // Публикация новой версии среза; вызывается только под эксклюзивной блокировкой
+    private void publish(TaskSnapshot next) {
+        snapshot = next.nextVersion();
+    }
+
+    // Публикация пакета задач одной новой версией среза
+    private List<Task> publishTasks(List<Task> stored) {
+        TaskSnapshot next = snapshot;
+        for (Task task : stored) {
+            next = next.withTask(task);
+        }
+        publish(next);
+        return stored;
+    }
+
+    // Вместе с подзадачами публикуются их прежние и новые эпики: статус и время эпика
+    // выводятся из подзадач и в опубликованных копиях сами не обновляются
+    private List<Subtask> publishSubtasks(List<Subtask> stored) {
+        TaskSnapshot next = snapshot;
+        IntSortedSet epicIds = new IntSortedSet();
+        for (Subtask subtask : stored) {
+            addEpicOf(subtask.getId(), epicIds);
+            epicIds.add(subtask.getEpicId());
+            next = next.withSubtask(subtask);
+        }
+        publish(withEpics(next, epicIds));
+        return stored;
+    }
+
+    // ID эпика, к которому подзадача id относилась в последнем опубликованном срезе
+    private void addEpicOf(int id, IntSortedSet epicIds) {
+        Subtask published = snapshot.getSubtask(id);
+        if (published != null) {
+            epicIds.add(published.getEpicId());
+        }
+    }
+
+    // Срез с копиями текущего состояния эпиков epicIds; удаленные эпики в срез не попадают
+    private TaskSnapshot withEpics(TaskSnapshot next, IntSortedSet epicIds) {
+        for (int i = 0; i < epicIds.size(); i++) {
+            int epicId = epicIds.get(i);
+            next = findTask(epicId) instanceof Epic epic ? next.withEpic(epic)
+                    : next.withoutEpic(epicId);
+        }
+        return next;
+    }
+
+    private <T> T read(Supplier<T> action) {
+        long stamp = lock.readLock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T> T readWithHistory(Supplier<T> action) {
+        return read(() -> {
+            synchronized (historyLock) {
+                return action.get();
+            }
+        });
+    }
+
+    private <T> T write(Supplier<T> action) {
+        long stamp = lock.writeLock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+}
@@ -1,168 +1,792 @@
 package main.java.ru.practicum.tasktracker.managers;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import main.java.ru.practicum.tasktracker.collections.IntSortedSet;
 import main.java.ru.practicum.tasktracker.tasks.*;
-import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.enums.PersistenceMode;
+import main.java.ru.practicum.tasktracker.enums.SnapshotFormat;
 import main.java.ru.practicum.tasktracker.enums.TaskType;
 import main.java.ru.practicum.tasktracker.exceptions.ManagerLoadException;
 import main.java.ru.practicum.tasktracker.exceptions.ManagerSaveException;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+// Менеджер, сохраняющий задачи в CSV-файл. В режиме SNAPSHOT файл перезаписывается целиком
+// после каждого изменения. В режиме JOURNAL изменение дописывается одной записью в журнал
+// <файл>.wal. Когда журнал накопит compactionThreshold записей, его сегмент закрывается
+// (переименовывается в <файл>.wal.<номер>), а в фоне пишется контрольная точка: снимок
+// состояния и файл <файл>.checkpoint с номером последнего покрытого им сегмента, после чего
+// покрытые сегменты удаляются. Снимок снимается постранично, под блокировкой только на время
+// страницы, поэтому изменения во время записи контрольной точки не ждут ее и могут попасть
+// в снимок частично; все они есть в новом сегменте.
+// При загрузке поверх снимка применяются только непокрытые сегменты и текущий журнал, то есть
+// обычно не больше compactionThreshold записей, сколько бы менеджер ни работал; время
+// восстановления доступно через getRecoveryTime. Записи задают итоговое состояние задач,
+// удаление эпика записывается вместе с удалением каждой его подзадачи, а подзадача без эпика
+// при применении отбрасывается. Поэтому применение сегмента к снимку, в который уже попала
+// часть его изменений (сбой между записью снимка и отметкой контрольной точки или изменения
+// во время постраничного снятия), приводит к тому же состоянию, что и к более старому снимку.
+// Изменения из нескольких потоков выполняются по одному, но ожидание записи журнала идет
+// вне блокировки, поэтому при политике FsyncPolicy.perWrite одновременные изменения
+// разделяют один сброс на диск. Чтения не синхронизированы, как и в InMemoryTaskManager.
+// В режиме WRITE_BEHIND изменение лишь увеличивает версию состояния, а снимок пишется в фоне
+// не чаще раза в saveInterval и при закрытии; при сбое теряются изменения за этот интервал.
+// Состояние для такого снимка снимается так же постранично, а кодируется уже без блокировки,
+// поэтому изменения во время снятия могут попасть в снимок частично.
+// Версию, уже попавшую в файл, можно узнать через getPersistedVersion и дождаться через
+// awaitPersisted.
+// Снимок пишется в CSV или в двоичном формате BinarySnapshot, по выбору сжатым блоками
+// CompressedSnapshot; при загрузке формат файла определяется по сигнатуре, и без явного
+// указания менеджер сохраняет файл в том же формате. Текущий журнал не сжимается: он
+// дописывается по одной записи, и контрольная сумма каждой записи нужна для поиска
+// оборванного хвоста. Закрытый сегмент при сжатом формате снимка сжимается теми же блоками
+// до записи контрольной точки и остается сжатым, если она не удалась.
+public final class FileBackedTaskManager extends InMemoryTaskManager {
+
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 10_000;
+    public static final Duration DEFAULT_SAVE_INTERVAL = Duration.ofMillis(200);
+
+    private static final String PUT = "P,";
+    private static final String DELETE = "D,";
+    private static final String CLEAR_TASKS = "C,TASK";
+    // Число задач, копируемых для контрольной точки за одно взятие блокировки
+    private static final int CHECKPOINT_PAGE = 1024;
 
     private final File file;
+    private final int compactionThreshold;
+    private final FsyncPolicy fsyncPolicy;
+    private final Duration saveInterval;
+    private SnapshotFormat format;
+    private final Object mutationLock = new Object();
+    private long version;
+    private JournalWriter journal;
+    private SnapshotWriter snapshots;
+    // Номер последнего закрытого сегмента журнала и фоновая контрольная точка (null - нет)
+    private long segment;
+    private Thread checkpoint;
+    private RuntimeException checkpointFailure;
+    private int recoveredRecords;
+    private Duration recoveryTime = Duration.ZERO;
 
     public FileBackedTaskManager(File file) {
+        this(file, PersistenceMode.SNAPSHOT);
+    }
+
+    public FileBackedTaskManager(File file, PersistenceMode mode) {
+        this(file, mode, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    // Новый менеджер в режиме JOURNAL сразу записывает пустой снимок и удаляет прежний журнал
+    public FileBackedTaskManager(File file, PersistenceMode mode, int compactionThreshold) {
+        this(file, mode, compactionThreshold, FsyncPolicy.os());
+    }
+
+    // В режиме SNAPSHOT любая политика, кроме os, сбрасывает на диск каждый снимок
+    public FileBackedTaskManager(File file, PersistenceMode mode, int compactionThreshold,
+            FsyncPolicy fsyncPolicy) {
+        this(file, mode, compactionThreshold, fsyncPolicy, SnapshotFormat.CSV);
+    }
+
+    public FileBackedTaskManager(File file, PersistenceMode mode, SnapshotFormat format) {
+        this(file, mode, DEFAULT_COMPACTION_THRESHOLD, FsyncPolicy.os(), format);
+    }
+
+    public FileBackedTaskManager(File file, PersistenceMode mode, int compactionThreshold,
+            FsyncPolicy fsyncPolicy, SnapshotFormat format) {
+        this(file, compactionThreshold, fsyncPolicy, DEFAULT_SAVE_INTERVAL, format);
+        if (mode == PersistenceMode.JOURNAL) {
+            deleteJournal(file);
+            save(true);
+            openJournal(0, 0);
+        } else if (mode == PersistenceMode.WRITE_BEHIND) {
+            openSnapshots();
+        }
+    }
+
+    // Менеджер в режиме WRITE_BEHIND с заданным интервалом записи снимков
+    public FileBackedTaskManager(File file, Duration saveInterval) {
+        this(file, DEFAULT_COMPACTION_THRESHOLD, FsyncPolicy.os(), saveInterval,
+                SnapshotFormat.CSV);
+        openSnapshots();
+    }
+
+    // format равен null, если формат нужно взять из загружаемого файла
+    private FileBackedTaskManager(File file, int compactionThreshold, FsyncPolicy fsyncPolicy,
+            Duration saveInterval, SnapshotFormat format) {
         this.file = file;
+        this.compactionThreshold = compactionThreshold;
+        this.fsyncPolicy = fsyncPolicy;
+        this.saveInterval = saveInterval;
+        this.format = format;
     }
 
-    private void save() throws ManagerSaveException {
-        try (FileWriter writer = new FileWriter(file)) {
-            writer.write("id,type,name,status,description,duration,startTime,epic\n");
-            for (Task task : getTasks()) {
-                writer.write(toString(task) + "\n");
+    // Версия состояния: число изменений, внесенных этим менеджером
+    public long getVersion() {
+        synchronized (mutationLock) {
+            return version;
+        }
+    }
+
+    // Последняя версия, записанная в файл. Вне режима WRITE_BEHIND изменение сохраняется
+    // до возврата из метода, поэтому она совпадает с getVersion
+    public long getPersistedVersion() {
+        return snapshots != null ? snapshots.getPersisted() : getVersion();
+    }
+
+    // Ожидание, пока в файл не будет записана версия не ниже заданной
+    public void awaitPersisted(long version) {
+        if (snapshots != null) {
+            snapshots.await(version);
+        }
+    }
+
+    // Число записей журнала, примененных при загрузке поверх снимка, и время загрузки
+    public int getRecoveredRecords() {
+        return recoveredRecords;
+    }
+
+    public Duration getRecoveryTime() {
+        return recoveryTime;
+    }
+
+    // Запись контрольной точки с ожиданием ее завершения; вне режима JOURNAL ничего не делает
+    public void checkpoint() {
+        synchronized (mutationLock) {
+            if (journal == null) {
+                return;
             }
-            for (Epic epic : getEpics()) {
-                writer.write(toString(epic) + "\n");
+            awaitCheckpoint();
+            startCheckpoint();
+            awaitCheckpoint();
+        }
+    }
+
+    // Запись и сброс на диск журнала вместе с закрытием; менеджер в режиме SNAPSHOT
+    // ресурсов не удерживает
+    public void close() {
+        if (snapshots != null) {
+            snapshots.close();
+        }
+        if (journal != null) {
+            synchronized (mutationLock) {
+                awaitCheckpoint();
             }
-            for (Subtask subtask : getSubtasks()) {
-                writer.write(toString(subtask) + "\n");
+            try {
+                journal.close();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Не удалось закрыть журнал: " + e.getMessage());
             }
+        }
+    }
+
+    private void save() throws ManagerSaveException {
+        save(!fsyncPolicy.isOs());
+    }
+
+    // Снимок пишется во временный файл, который затем атомарно заменяет прежний
+    private void save(boolean force) throws ManagerSaveException {
+        writeSnapshot(encodeSnapshot(), force);
+    }
+
+    // Содержимое файла снимка текущего состояния
+    private ByteBuffer encodeSnapshot() {
+        List<Task> all = new ArrayList<>(getTasks());
+        all.addAll(getEpics());
+        all.addAll(getSubtasks());
+        return encodeSnapshot(all);
+    }
+
+    private ByteBuffer encodeSnapshot(List<Task> all) {
+        ByteBuffer content;
+        if (format == SnapshotFormat.BINARY || format == SnapshotFormat.BINARY_DEFLATE) {
+            content = BinarySnapshot.encode(all);
+        } else {
+            StringBuilder builder = new StringBuilder(64 * (all.size() + 1));
+            builder.append(TaskCsv.HEADER).append('\n');
+            for (Task task : all) {
+                TaskCsv.append(builder, task);
+                builder.append('\n');
+            }
+            content = StandardCharsets.UTF_8.encode(CharBuffer.wrap(builder));
+        }
+        return format.isCompressed() ? CompressedSnapshot.compress(content) : content;
+    }
+
+    private void writeSnapshot(ByteBuffer content, boolean force) throws ManagerSaveException {
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = content.duplicate();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (force) {
+                    channel.force(false);
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
+            temp.delete();
             throw new ManagerSaveException("Не удалось сохранить задачи в файл: " + e.getMessage());
         }
     }
 
-    private String toString(Task task) {
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
-        String startTimeStr =
-                task.getStartTime() != null ? task.getStartTime().format(formatter) : "null";
-        String durationStr =
-                task.getDuration() != null ? String.valueOf(task.getDuration().toMinutes())
-                        : "null";
+    // Приватный метод для выполнения изменения: само изменение и постановка его записей
+    // в журнал идут под блокировкой, а ожидание записи - уже после нее
+    private <T> T mutate(Supplier<T> action, Function<T, List<String>> records) {
+        T result;
+        long sequence;
+        synchronized (mutationLock) {
+            result = action.get();
+            sequence = persist(records.apply(result));
+        }
 
-        if (task instanceof Subtask subtask) {
-            return String.format("%d,SUBTASK,%s,%s,%s,%s,%s,%d", subtask.getId(),
-                    subtask.getTitle(),
-                    subtask.getStatus(), subtask.getDescription(), durationStr, startTimeStr,
-                    subtask.getEpicId());
-        } else if (task instanceof Epic) {
-            return String.format("%d,EPIC,%s,%s,%s,%s,%s,", task.getId(), task.getTitle(),
-                    task.getStatus(), task.getDescription(), durationStr, startTimeStr);
-        } else {
-            return String.format("%d,TASK,%s,%s,%s,%s,%s,", task.getId(), task.getTitle(),
-                    task.getStatus(), task.getDescription(), durationStr, startTimeStr);
+        if (sequence > 0) {
+            try {
+                journal.await(sequence);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Не удалось записать журнал: " + e.getMessage());
+            }
         }
+        return result;
     }
 
-    private Task fromString(String value) throws IllegalArgumentException {
-        String[] fields = value.split(",");
-        int id = Integer.parseInt(fields[0]);
-        TaskType type = TaskType.valueOf(fields[1]);
-        String name = fields[2];
-        Status status = Status.valueOf(fields[3]);
-        String description = fields[4];
-        Duration duration =
-                "null".equals(fields[5]) ? null : Duration.ofMinutes(Long.parseLong(fields[5]));
-        LocalDateTime startTime = "null".equals(fields[6]) ? null : LocalDateTime.parse(fields[6]);
+    // Приватный метод для сохранения изменения, описанного записями журнала; возвращает
+    // номер группы в журнале, записи которой нужно дождаться, или 0
+    private long persist(List<String> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        version++;
+        if (snapshots != null) {
+            snapshots.markDirty(version);
+            return 0;
+        }
+        if (journal == null) {
+            save();
+            return 0;
+        }
 
-        return switch (type) {
-            case TASK -> new Task(id, name, description, status, duration, startTime);
-            case EPIC -> new Epic(id, name, description, status);
-            case SUBTASK -> {
-                int epicId = Integer.parseInt(fields[7]);
-                yield new Subtask(id, name, description, status, duration, startTime, epicId);
+        long sequence;
+        try {
+            sequence = journal.append(records);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать журнал: " + e.getMessage());
+        }
+        if (journal.size() >= compactionThreshold && checkpoint == null) {
+            startCheckpoint();
+        }
+        return sequence;
+    }
+
+    // Закрытие текущего сегмента журнала и запуск записи контрольной точки в фоне
+    private void startCheckpoint() {
+        long covered = ++segment;
+        try {
+            journal.rotate(segmentFile(file, covered));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось закрыть сегмент журнала: " + e.getMessage());
+        }
+        checkpoint = new Thread(() -> writeCheckpoint(covered), "checkpoint-writer");
+        checkpoint.setDaemon(true);
+        checkpoint.start();
+    }
+
+    // Ожидание фоновой контрольной точки; вызывается под mutationLock. Ошибка контрольной точки
+    // изменения не теряет (они остаются в журнале) и сообщается здесь
+    private void awaitCheckpoint() {
+        boolean interrupted = false;
+        while (checkpoint != null) {
+            try {
+                mutationLock.wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
             }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (checkpointFailure != null) {
+            RuntimeException failure = checkpointFailure;
+            checkpointFailure = null;
+            throw new ManagerSaveException("Не удалось записать контрольную точку: "
+                    + failure.getMessage());
+        }
+    }
+
+    // Контрольная точка: снимок пишется, только когда закрытый сегмент уже на диске, номер
+    // сегмента записывается после снимка, а покрытые сегменты удаляются последними
+    private void writeCheckpoint(long covered) {
+        try {
+            journal.awaitRotation();
+            if (format.isCompressed()) {
+                TaskJournal.compress(segmentFile(file, covered));
+            }
+            writeSnapshot(encodeSnapshot(captureState()), true);
+            writeAtomically(checkpointFile(file), String.valueOf(covered));
+            for (Map.Entry<Long, File> entry : segmentFiles(file).headMap(covered, true)
+                    .entrySet()) {
+                Files.deleteIfExists(entry.getValue().toPath());
+            }
+        } catch (IOException | RuntimeException e) {
+            synchronized (mutationLock) {
+                checkpointFailure = e instanceof RuntimeException runtime ? runtime
+                        : new ManagerSaveException(e.getMessage());
+            }
+        } finally {
+            synchronized (mutationLock) {
+                checkpoint = null;
+                mutationLock.notifyAll();
+            }
+        }
+    }
+
+    // Постраничный снимок состояния: блокировка берется на время одной страницы, а задачи
+    // страницы копируются, чтобы дальнейшие изменения их не затронули. Подзадачи, эпик
+    // которых в снимок не попал (создан или удален во время снятия), отбрасываются
+    private List<Task> captureState() {
+        List<Task> state = new ArrayList<>();
+        capturePages(state, afterId -> getTasks(afterId, CHECKPOINT_PAGE));
+        int epicsFrom = state.size();
+        capturePages(state, afterId -> getEpics(afterId, CHECKPOINT_PAGE));
+        IntSortedSet epicIds = new IntSortedSet();
+        for (Task epic : state.subList(epicsFrom, state.size())) {
+            epicIds.add(epic.getId());
+        }
+        capturePages(state, afterId -> getSubtasks(afterId, CHECKPOINT_PAGE));
+        state.removeIf(task -> task instanceof Subtask subtask
+                && !epicIds.contains(subtask.getEpicId()));
+        return state;
+    }
+
+    private void capturePages(List<Task> state, IntFunction<List<? extends Task>> page) {
+        int afterId = Integer.MIN_VALUE;
+        while (true) {
+            List<? extends Task> tasks;
+            synchronized (mutationLock) {
+                tasks = page.apply(afterId);
+                for (Task task : tasks) {
+                    state.add(copyOf(task));
+                }
+            }
+            if (tasks.size() < CHECKPOINT_PAGE) {
+                return;
+            }
+            afterId = tasks.getLast().getId();
+        }
+    }
+
+    private static Task copyOf(Task task) {
+        return switch (task.getType()) {
+            case TASK -> new Task(task.getId(), task.getTitle(), task.getDescription(),
+                    task.getStatus(), task.getDuration(), task.getStartTime());
+            case EPIC -> new Epic(task.getId(), task.getTitle(), task.getDescription(),
+                    task.getStatus());
+            case SUBTASK -> new Subtask(task.getId(), task.getTitle(), task.getDescription(),
+                    task.getStatus(), task.getDuration(), task.getStartTime(),
+                    ((Subtask) task).getEpicId());
         };
     }
 
+    private void openJournal(long validLength, int records) {
+        try {
+            journal = new JournalWriter(new TaskJournal(journalFile(file), validLength),
+                    fsyncPolicy, records);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось открыть журнал: " + e.getMessage());
+        }
+    }
+
+    // Копия состояния для фоновой записи снимается постранично, как для контрольной точки,
+    // а кодирование и запись в файл идут уже без блокировки. Версия берется до снятия:
+    // все изменения до нее в копию попадают, более поздние - возможно, частично
+    private void openSnapshots() {
+        snapshots = new SnapshotWriter(saveInterval.toMillis(), version, () -> {
+            long captured;
+            synchronized (mutationLock) {
+                captured = version;
+            }
+            return new SnapshotWriter.Snapshot(captured, encodeSnapshot(captureState()));
+        }, content -> writeSnapshot(content, !fsyncPolicy.isOs()));
+    }
+
+    private static File journalFile(File file) {
+        return new File(file.getPath() + ".wal");
+    }
+
+    private static File segmentFile(File file, long number) {
+        return new File(file.getPath() + ".wal." + number);
+    }
+
+    private static File checkpointFile(File file) {
+        return new File(file.getPath() + ".checkpoint");
+    }
+
+    // Закрытые сегменты журнала по номерам
+    private static TreeMap<Long, File> segmentFiles(File file) {
+        TreeMap<Long, File> segments = new TreeMap<>();
+        File directory = file.getAbsoluteFile().getParentFile();
+        String prefix = file.getName() + ".wal.";
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(prefix)
+                && name.length() > prefix.length()
+                && name.substring(prefix.length()).chars().allMatch(Character::isDigit));
+        if (files != null) {
+            for (File segmentFile : files) {
+                segments.put(Long.parseLong(segmentFile.getName().substring(prefix.length())),
+                        segmentFile);
+            }
+        }
+        return segments;
+    }
+
+    // Номер последнего сегмента, покрытого контрольной точкой, или 0
+    private static long readCheckpoint(File file) throws IOException {
+        File checkpointFile = checkpointFile(file);
+        if (!checkpointFile.exists()) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(checkpointFile.toPath()).trim());
+    }
+
+    // Удаление журнала, его закрытых сегментов и отметки контрольной точки
+    private static void deleteJournal(File file) {
+        journalFile(file).delete();
+        checkpointFile(file).delete();
+        for (File segmentFile : segmentFiles(file).values()) {
+            segmentFile.delete();
+        }
+    }
+
+    private static void writeAtomically(File target, String content) throws IOException {
+        File temp = new File(target.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private String put(Task task) {
+        return PUT + TaskCsv.format(task);
+    }
+
+    private List<String> puts(Collection<? extends Task> tasks) {
+        List<String> records = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            records.add(put(task));
+        }
+        return records;
+    }
+
+    private List<String> changes(Map<Integer, Task> changes) {
+        List<String> records = new ArrayList<>(changes.size());
+        for (Map.Entry<Integer, Task> entry : changes.entrySet()) {
+            records.add(entry.getValue() != null ? put(entry.getValue())
+                    : DELETE + entry.getKey());
+        }
+        return records;
+    }
+
+    // ID из ids, под которыми в менеджере есть задачи типа type, без повторов. Только они
+    // удаляются и попадают в журнал: запись удаления при восстановлении не знает типа задачи
+    private Collection<Integer> present(Collection<Integer> ids, TaskType type) {
+        Set<Integer> present = new LinkedHashSet<>();
+        for (int id : ids) {
+            Task task = findTask(id);
+            if (task != null && task.getType() == type) {
+                present.add(id);
+            }
+        }
+        return present;
+    }
+
+    private static List<String> deletes(Collection<Integer> ids) {
+        List<String> records = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            records.add(DELETE + id);
+        }
+        return records;
+    }
+
+    // Приватный метод для применения группы записей журнала без повторного сохранения
+    private void replay(List<String> group) {
+        if (group.size() == 1 && CLEAR_TASKS.equals(group.getFirst())) {
+            super.deleteTasks();
+            return;
+        }
+
+        Map<Integer, Task> changes = new LinkedHashMap<>();
+        for (String record : group) {
+            if (record.startsWith(PUT)) {
+                Task task = TaskCsv.parse(record.substring(PUT.length()));
+                changes.put(task.getId(), task);
+            } else if (record.startsWith(DELETE)) {
+                changes.put(Integer.parseInt(record.substring(DELETE.length())), null);
+            } else {
+                throw new IllegalArgumentException("Неизвестная запись журнала: " + record);
+            }
+        }
+        restore(changes);
+    }
+
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        return loadFromFile(file, PersistenceMode.SNAPSHOT);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode mode) {
+        return loadFromFile(file, mode, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    // Загрузка снимка и применение к нему журнала, если он есть. Поврежденный хвост журнала
+    // (запись, не дописанная из-за сбоя) отбрасывается. Снимок разбирается потоково через
+    // TaskCsvReader или BinarySnapshot, а большой файл - по частям в ParallelSnapshotReader,
+    // и целиком передается в пакетную загрузку; во время загрузки в файл ничего не пишется
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode mode,
+            int compactionThreshold) {
+        return loadFromFile(file, mode, compactionThreshold, FsyncPolicy.os());
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode mode,
+            int compactionThreshold, FsyncPolicy fsyncPolicy) {
+        return load(file, mode, new FileBackedTaskManager(file, compactionThreshold, fsyncPolicy,
+                DEFAULT_SAVE_INTERVAL, null));
+    }
+
+    // Загрузка с последующим сохранением в формате format, например для перевода CSV в BINARY
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode mode,
+            SnapshotFormat format) {
+        return load(file, mode, new FileBackedTaskManager(file, DEFAULT_COMPACTION_THRESHOLD,
+                FsyncPolicy.os(), DEFAULT_SAVE_INTERVAL, format));
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, Duration saveInterval) {
+        return load(file, PersistenceMode.WRITE_BEHIND, new FileBackedTaskManager(file,
+                DEFAULT_COMPACTION_THRESHOLD, FsyncPolicy.os(), saveInterval, null));
+    }
+
+    private static FileBackedTaskManager load(File file, PersistenceMode mode,
+            FileBackedTaskManager manager) {
+        long started = System.nanoTime();
+        File journalFile = journalFile(file);
+        long validLength;
+        int records = 0;
+        int sealedRecords = 0;
+        TreeMap<Long, File> segments = segmentFiles(file);
         try {
-            List<String> lines = Files.readAllLines(file.toPath());
-            for (int i = 1; i < lines.size(); i++) {
-                Task task = manager.fromString(lines.get(i));
-                if (task instanceof Epic) {
-                    manager.createEpic((Epic) task);
-                } else if (task instanceof Subtask) {
-                    manager.createSubtask((Subtask) task);
-                } else {
-                    manager.createTask(task);
+            List<Task> snapshot = new ArrayList<>();
+            SnapshotFormat fileFormat = BinarySnapshot.isBinary(file) ? SnapshotFormat.BINARY
+                    : SnapshotFormat.CSV;
+            if (CompressedSnapshot.isCompressed(file)) {
+                ForkJoinPool pool = ForkJoinPool.commonPool();
+                byte[] content = CompressedSnapshot.decompress(Files.readAllBytes(file.toPath()),
+                        pool);
+                fileFormat = BinarySnapshot.isBinary(content) ? SnapshotFormat.BINARY_DEFLATE
+                        : SnapshotFormat.CSV_DEFLATE;
+                snapshot = ParallelSnapshotReader.read(content, pool);
+            } else if (file.length() >= ParallelSnapshotReader.PARALLEL_THRESHOLD) {
+                snapshot = ParallelSnapshotReader.read(file, ForkJoinPool.commonPool());
+            } else if (fileFormat == SnapshotFormat.BINARY) {
+                snapshot = BinarySnapshot.read(file);
+            } else if (file.exists()) {
+                try (TaskCsvReader reader = new TaskCsvReader(Files.newBufferedReader(
+                        file.toPath(), StandardCharsets.UTF_8))) {
+                    reader.skip();
+                    Task task;
+                    while ((task = reader.next()) != null) {
+                        snapshot.add(task);
+                    }
                 }
             }
-        } catch (IllegalArgumentException | IOException e) {
+            if (manager.format == null) {
+                manager.format = fileFormat;
+            }
+            manager.load(snapshot);
+
+            // Сегменты, покрытые контрольной точкой, остаются, только если сбой случился
+            // до их удаления; применяются сегменты после нее и текущий журнал
+            long covered = readCheckpoint(file);
+            manager.segment = Math.max(covered, segments.isEmpty() ? 0 : segments.lastKey());
+            List<List<String>> groups = new ArrayList<>();
+            for (File segmentFile : segments.tailMap(covered, false).values()) {
+                TaskJournal.read(segmentFile, groups);
+            }
+            for (List<String> group : groups) {
+                manager.replay(group);
+                sealedRecords += group.size();
+            }
+
+            groups.clear();
+            validLength = TaskJournal.read(journalFile, groups);
+            for (List<String> group : groups) {
+                manager.replay(group);
+                records += group.size();
+            }
+        } catch (IllegalArgumentException | IOException | UncheckedIOException e) {
             throw new ManagerLoadException(
                     "Не удалось загрузить задачи из файла: " + e.getMessage());
         }
+
+        manager.recoveredRecords = sealedRecords + records;
+        manager.recoveryTime = Duration.ofNanos(System.nanoTime() - started);
+
+        if (mode == PersistenceMode.JOURNAL) {
+            manager.openJournal(validLength, records);
+            if (sealedRecords > 0 || records >= manager.compactionThreshold) {
+                synchronized (manager.mutationLock) {
+                    manager.startCheckpoint();
+                }
+            }
+        } else if (journalFile.exists() || checkpointFile(file).exists() || !segments.isEmpty()) {
+            // Журнал больше не будет вестись, поэтому его записи переносятся в снимок
+            manager.save();
+            deleteJournal(file);
+        }
+        if (mode == PersistenceMode.WRITE_BEHIND) {
+            manager.openSnapshots();
+        }
         return manager;
     }
 
     @Override
     public Task createTask(Task task) {
-        Task newTask = super.createTask(task);
-        save();
-        return newTask;
+        return mutate(() -> super.createTask(task), newTask -> List.of(put(newTask)));
     }
 
     @Override
     public Task updateTask(Task task) {
-        Task updatedTask = super.updateTask(task);
-        save();
-        return updatedTask;
+        return mutate(() -> super.updateTask(task), updatedTask -> List.of(put(updatedTask)));
     }
 
     @Override
     public boolean deleteTask(int id) {
-        boolean result = super.deleteTask(id);
-        save();
-        return result;
+        return mutate(() -> super.deleteTask(id),
+                removed -> removed ? List.of(DELETE + id) : List.of());
+    }
+
+    @Override
+    public void deleteTasks() {
+        mutate(() -> {
+            super.deleteTasks();
+            return null;
+        }, ignored -> List.of(CLEAR_TASKS));
+    }
+
+    @Override
+    public List<Task> createTasks(Collection<Task> tasks) {
+        return mutate(() -> super.createTasks(tasks), this::puts);
+    }
+
+    @Override
+    public List<Task> updateTasks(Collection<Task> tasks) {
+        return mutate(() -> super.updateTasks(tasks), this::puts);
+    }
+
+    @Override
+    public int deleteTasks(Collection<Integer> ids) {
+        return mutate(() -> {
+            Collection<Integer> present = present(ids, TaskType.TASK);
+            super.deleteTasks(present);
+            return present;
+        }, FileBackedTaskManager::deletes).size();
     }
 
     @Override
     public Epic createEpic(Epic epic) {
-        Epic newEpic = super.createEpic(epic);
-        save();
-        return newEpic;
+        return mutate(() -> super.createEpic(epic), newEpic -> List.of(put(newEpic)));
+    }
+
+    @Override
+    public List<Epic> createEpics(Collection<Epic> epics) {
+        return mutate(() -> super.createEpics(epics), this::puts);
     }
 
     @Override
     public Epic updateEpic(Epic epic) {
-        Epic updatedEpic = super.updateEpic(epic);
-        save();
-        return updatedEpic;
+        return mutate(() -> super.updateEpic(epic), updatedEpic -> List.of(put(updatedEpic)));
     }
 
+    // Подзадачи эпика журналируются отдельными удалениями перед самим эпиком: журнал может
+    // применяться к более новому снимку, где эпика уже нет, а подзадача есть в журнале
     @Override
     public boolean deleteEpic(int id) {
-        boolean result = super.deleteEpic(id);
-        save();
-        return result;
+        return !mutate(() -> {
+            List<Integer> removed = new ArrayList<>();
+            if (findTask(id) instanceof Epic epic) {
+                epic.forEachSubtaskId(removed::add);
+                removed.add(id);
+            }
+            super.deleteEpic(id);
+            return removed;
+        }, FileBackedTaskManager::deletes).isEmpty();
     }
 
     @Override
     public Subtask createSubtask(Subtask subtask) {
-        Subtask newSubtask = super.createSubtask(subtask);
-        save();
-        return newSubtask;
+        return mutate(() -> super.createSubtask(subtask),
+                newSubtask -> List.of(put(newSubtask)));
     }
 
     @Override
     public Subtask updateSubtask(Subtask subtask) {
-        Subtask updatedSubtask = super.updateSubtask(subtask);
-        save();
-        return updatedSubtask;
+        return mutate(() -> super.updateSubtask(subtask),
+                updatedSubtask -> List.of(put(updatedSubtask)));
     }
 
     @Override
     public boolean deleteSubtask(int id) {
-        boolean result = super.deleteSubtask(id);
-        save();
-        return result;
+        return mutate(() -> super.deleteSubtask(id),
+                removed -> removed ? List.of(DELETE + id) : List.of());
+    }
+
+    @Override
+    public List<Subtask> createSubtasks(Collection<Subtask> subtasks) {
+        return mutate(() -> super.createSubtasks(subtasks), this::puts);
+    }
+
+    @Override
+    public List<Subtask> updateSubtasks(Collection<Subtask> subtasks) {
+        return mutate(() -> super.updateSubtasks(subtasks), this::puts);
+    }
+
+    @Override
+    public int deleteSubtasks(Collection<Integer> ids) {
+        return mutate(() -> {
+            Collection<Integer> present = present(ids, TaskType.SUBTASK);
+            super.deleteSubtasks(present);
+            return present;
+        }, FileBackedTaskManager::deletes).size();
+    }
+
+    @Override
+    public void inTransaction(Consumer<TaskTransaction> action) {
+        mutate(() -> commit(action), this::changes);
     }
 }
@@ -0,0 +1,53 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+// Политика сброса журнала на диск (FileChannel.force): после каждой записи, не чаще
+// одного раза в заданный интервал или на усмотрение операционной системы
+public final class FsyncPolicy {
+
+    private static final FsyncPolicy PER_WRITE = new FsyncPolicy(0);
+    private static final FsyncPolicy OS = new FsyncPolicy(-1);
+
+    private final long intervalMillis;
+
+    private FsyncPolicy(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    // Изменение возвращается вызывающему только после сброса на диск. Записи, накопившиеся
+    // за время одного сброса, сбрасываются следующим вместе
+    public static FsyncPolicy perWrite() {
+        return PER_WRITE;
+    }
+
+    // Изменение возвращается после записи в файл, на диск журнал сбрасывается в фоне
+    // не реже раза в intervalMillis; при сбое ОС теряется не более этого интервала
+    public static FsyncPolicy everyMillis(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException(
+                    "Интервал сброса должен быть положительным: " + intervalMillis);
+        }
+        return new FsyncPolicy(intervalMillis);
+    }
+
+    // Изменение возвращается после записи в файл, сброс на диск выполняет ОС
+    public static FsyncPolicy os() {
+        return OS;
+    }
+
+    boolean isPerWrite() {
+        return intervalMillis == 0;
+    }
+
+    boolean isOs() {
+        return intervalMillis < 0;
+    }
+
+    long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return isPerWrite() ? "perWrite" : isOs() ? "os" : "every " + intervalMillis + " ms";
+    }
+}
@@ -10,4 +10,7 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    // Не более limit записей истории, следующих за задачей afterId (0 - с начала истории)
+    List<Task> getHistory(int afterId, int limit);
 }
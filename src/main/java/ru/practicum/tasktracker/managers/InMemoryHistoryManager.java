@@ -1,14 +1,13 @@
 package main.java.ru.practicum.tasktracker.managers;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import main.java.ru.practicum.tasktracker.collections.IntMap;
 import main.java.ru.practicum.tasktracker.tasks.Task;
 
 public class InMemoryHistoryManager implements HistoryManager {
 
-    private final Map<Integer, Node> historyMap = new HashMap<>();
+    private final IntMap<Node> historyMap = new IntMap<>();
     private Node head;
     private Node tail;
 
@@ -37,6 +36,26 @@ public class InMemoryHistoryManager implements HistoryManager {
         return history;
     }
 
+    @Override
+    public List<Task> getHistory(int afterId, int limit) {
+        Node current = head;
+        if (afterId != 0) {
+            Node after = historyMap.get(afterId);
+            if (after == null) {
+                throw new IllegalArgumentException(
+                        "Задача с ID " + afterId + " отсутствует в истории");
+            }
+            current = after.next;
+        }
+
+        List<Task> history = new ArrayList<>(Math.min(limit, historyMap.size()));
+        while (current != null && history.size() < limit) {
+            history.add(current.task);
+            current = current.next;
+        }
+        return history;
+    }
+
     private void linkLast(Task task) {
         Node newNode = new Node(tail, task, null);
         if (tail != null) {
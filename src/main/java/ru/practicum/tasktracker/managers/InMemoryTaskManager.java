@@ -1,43 +1,96 @@
 package main.java.ru.practicum.tasktracker.managers;
 
-import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.TreeSet;
+import java.util.function.Consumer;
 
+import main.java.ru.practicum.tasktracker.collections.IntMap;
+import main.java.ru.practicum.tasktracker.collections.IntSortedSet;
+import main.java.ru.practicum.tasktracker.enums.TaskType;
 import main.java.ru.practicum.tasktracker.exceptions.OverlapException;
+import main.java.ru.practicum.tasktracker.exceptions.TransactionException;
 import main.java.ru.practicum.tasktracker.tasks.*;
 import main.java.ru.practicum.tasktracker.enums.Status;
-import java.time.LocalDateTime;
-import java.util.Comparator;
 
 public class InMemoryTaskManager implements TaskManager {
 
-    private final Map<Integer, Task> tasks = new HashMap<>();
-    private final Map<Integer, Epic> epics = new HashMap<>();
-    private final Map<Integer, Subtask> subtasks = new HashMap<>();
+    private final TaskStorage<Task> tasks;
+    private final TaskStorage<Epic> epics;
+    private final TaskStorage<Subtask> subtasks;
     private final HistoryManager historyManager = Managers.getDefaultHistory();
 
-    private final TreeSet<Task> prioritizedTasks = new TreeSet<>(
-            Comparator.comparing(Task::getStartTime,
-                    Comparator.nullsLast(Comparator.naturalOrder())));
+    // Интервалы задач и подзадач со временем начала, отсортированные по времени начала и ID
+    private final TreeSet<TimeSlot> prioritizedTasks = new TreeSet<>();
+    // Состояния, под которыми задачи всех типов учтены в индексах и счетчиках эпиков
+    private final IntMap<IndexedState> indexedStates = new IntMap<>();
+    // ID задач каждого типа по возрастанию, для постраничной выдачи
+    private final Map<TaskType, IntSortedSet> idIndex = new EnumMap<>(TaskType.class);
+    // ID задач по типу и статусу, по возрастанию ID
+    private final Map<TaskType, Map<Status, IntSortedSet>> statusIndex = new EnumMap<>(
+            TaskType.class);
+    // Индекс времени выполнения для проверки пересечений
+    private final OverlapIndex overlapIndex;
+
+    public InMemoryTaskManager() {
+        this(new IntervalTree());
+    }
+
+    InMemoryTaskManager(OverlapIndex overlapIndex) {
+        this(overlapIndex, TaskStorage.inMemory(), TaskStorage.inMemory(),
+                TaskStorage.inMemory());
+    }
+
+    InMemoryTaskManager(OverlapIndex overlapIndex, TaskStorage<Task> tasks,
+            TaskStorage<Epic> epics, TaskStorage<Subtask> subtasks) {
+        this.overlapIndex = overlapIndex;
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        for (TaskType type : TaskType.values()) {
+            Map<Status, IntSortedSet> byStatus = new EnumMap<>(Status.class);
+            for (Status status : Status.values()) {
+                byStatus.put(status, new IntSortedSet());
+            }
+            statusIndex.put(type, byStatus);
+            idIndex.put(type, new IntSortedSet());
+        }
+    }
 
     // Методы для простых задач
+    // Списки задач всех типов возвращаются в порядке возрастания ID
     @Override
     public List<Task> getTasks() {
-        return new ArrayList<>(tasks.values());
+        return getPage(TaskType.TASK, tasks, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> getTasks(int afterId, int limit) {
+        return getPage(TaskType.TASK, tasks, afterId, limit);
     }
 
     @Override
     public void deleteTasks() {
-        for (Integer id : tasks.keySet()) {
+        // Очистка индексов ID и статусов целиком избавляет от поштучного удаления ID из них;
+        // по одной удаляются только состояния задач, интервалы и записи истории
+        IntSortedSet ids = idIndex.get(TaskType.TASK);
+        for (int i = 0; i < ids.size(); i++) {
+            int id = ids.get(i);
             historyManager.remove(id);
+            unindexSlot(indexedStates.remove(id));
         }
+        statusIndex.get(TaskType.TASK).values().forEach(IntSortedSet::clear);
+        ids.clear();
 
         tasks.clear();
-        updatePrioritizedTasks();
     }
 
     @Override
@@ -56,37 +109,55 @@ public class InMemoryTaskManager implements TaskManager {
             validateTask(task);
         }
 
-        tasks.put(task.getId(), task);
-        updatePrioritizedTasks();
-
+        putTask(task);
         return task;
     }
 
+    @Override
+    public List<Task> createTasks(Collection<Task> newTasks) {
+        return putTasks(newTasks);
+    }
+
     @Override
     public Task updateTask(Task task) {
         if (task.getStartTime() != null) {
             validateTask(task);
         }
 
-        tasks.put(task.getId(), task);
-        updatePrioritizedTasks();
-
+        putTask(task);
         return task;
     }
 
+    @Override
+    public List<Task> updateTasks(Collection<Task> updatedTasks) {
+        return putTasks(updatedTasks);
+    }
+
     @Override
     public boolean deleteTask(int id) {
-        historyManager.remove(id);
-        boolean removed = tasks.remove(id) != null;
-        updatePrioritizedTasks();
+        return removeTask(id);
+    }
 
+    @Override
+    public int deleteTasks(Collection<Integer> ids) {
+        int removed = 0;
+        for (int id : ids) {
+            if (removeTask(id)) {
+                removed++;
+            }
+        }
         return removed;
     }
 
     // Методы для эпиков
     @Override
     public List<Epic> getEpics() {
-        return new ArrayList<>(epics.values());
+        return getPage(TaskType.EPIC, epics, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Epic> getEpics(int afterId, int limit) {
+        return getPage(TaskType.EPIC, epics, afterId, limit);
     }
 
     @Override
@@ -101,36 +172,27 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public Epic createEpic(Epic epic) {
-        epics.put(epic.getId(), epic);
-        updatePrioritizedTasks();
-
+        putEpic(epic);
         return epic;
     }
 
     @Override
-    public Epic updateEpic(Epic epic) {
-        epics.put(epic.getId(), epic);
-        updatePrioritizedTasks();
+    public List<Epic> createEpics(Collection<Epic> newEpics) {
+        for (Epic epic : newEpics) {
+            putEpic(epic);
+        }
+        return new ArrayList<>(newEpics);
+    }
 
+    @Override
+    public Epic updateEpic(Epic epic) {
+        putEpic(epic);
         return epic;
     }
 
     @Override
     public boolean deleteEpic(int id) {
-        Epic epic = epics.remove(id);
-        if (epic != null) {
-            for (Integer subtaskId : epic.getSubtaskIds()) {
-                subtasks.remove(subtaskId);
-                historyManager.remove(subtaskId);
-            }
-
-            historyManager.remove(id);
-            updatePrioritizedTasks();
-
-            return true;
-        }
-
-        return false;
+        return removeEpic(id);
     }
 
     // Методы для подзадач
@@ -141,14 +203,19 @@ public class InMemoryTaskManager implements TaskManager {
             return new ArrayList<>();
         }
 
-        return epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .toList();
+        List<Subtask> epicSubtasks = new ArrayList<>(epic.getSubtaskCount());
+        epic.forEachSubtaskId(subtaskId -> epicSubtasks.add(subtasks.get(subtaskId)));
+        return epicSubtasks;
     }
 
     @Override
     public List<Subtask> getSubtasks() {
-        return new ArrayList<>(subtasks.values());
+        return getPage(TaskType.SUBTASK, subtasks, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(int afterId, int limit) {
+        return getPage(TaskType.SUBTASK, subtasks, afterId, limit);
     }
 
     @Override
@@ -167,50 +234,176 @@ public class InMemoryTaskManager implements TaskManager {
             validateTask(subtask);
         }
 
-        subtasks.put(subtask.getId(), subtask);
-
-        Epic epic = epics.get(subtask.getEpicId());
-        if (epic != null) {
-            epic.addSubtaskId(subtask.getId());
-            updateEpicStatus(epic);
-            updateEpicTimesAndDuration(epic);
-        }
-
-        updatePrioritizedTasks();
+        putSubtask(subtask);
         return subtask;
     }
 
+    @Override
+    public List<Subtask> createSubtasks(Collection<Subtask> newSubtasks) {
+        return putSubtasks(newSubtasks);
+    }
+
     @Override
     public Subtask updateSubtask(Subtask subtask) {
         if (subtask.getStartTime() != null) {
             validateTask(subtask);
         }
 
-        subtasks.put(subtask.getId(), subtask);
-
-        Epic epic = epics.get(subtask.getEpicId());
-        if (epic != null) {
-            updateEpicStatus(epic);
-        }
-
-        updatePrioritizedTasks();
+        putSubtask(subtask);
         return subtask;
     }
 
+    @Override
+    public List<Subtask> updateSubtasks(Collection<Subtask> updatedSubtasks) {
+        return putSubtasks(updatedSubtasks);
+    }
+
     @Override
     public boolean deleteSubtask(int id) {
-        Subtask subtask = subtasks.remove(id);
-        if (subtask != null) {
-            Epic epic = epics.get(subtask.getEpicId());
-            if (epic != null) {
-                epic.removeSubtaskId(subtask.getId());
-                updateEpicStatus(epic);
+        return removeSubtask(id);
+    }
+
+    @Override
+    public int deleteSubtasks(Collection<Integer> ids) {
+        int removed = 0;
+        for (int id : ids) {
+            if (removeSubtask(id)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    // Метод для атомарного применения набора изменений
+    @Override
+    public void inTransaction(Consumer<TaskTransaction> action) {
+        commit(action);
+    }
+
+    // Применение транзакции; возвращает итоговые версии затронутых задач (null - задача удалена)
+    Map<Integer, Task> commit(Consumer<TaskTransaction> action) {
+        Transaction transaction = new Transaction();
+        action.accept(transaction);
+        transaction.validate();
+        restore(transaction.staged);
+        return transaction.staged;
+    }
+
+    // Загрузка сохраненного состояния в пустой менеджер без проверок. Задачи раскладываются
+    // по хранилищам по возрастанию ID, после чего индексы заполняются через loadIndexed.
+    // Сортировки идут через Arrays.parallelSort и на больших снимках занимают все ядра.
+    void load(Collection<? extends Task> saved) {
+        checkEmpty();
+
+        Task[] array = saved.toArray(new Task[0]);
+        Arrays.parallelSort(array, Comparator.comparingInt(Task::getId));
+        int[] counts = new int[TaskType.values().length];
+        for (Task task : array) {
+            counts[task.getType().ordinal()]++;
+        }
+        tasks.ensureCapacity(counts[TaskType.TASK.ordinal()]);
+        subtasks.ensureCapacity(counts[TaskType.SUBTASK.ordinal()]);
+
+        List<Epic> loadedEpics = new ArrayList<>(counts[TaskType.EPIC.ordinal()]);
+        int[] ids = new int[array.length - counts[TaskType.EPIC.ordinal()]];
+        IndexedState[] states = new IndexedState[ids.length];
+        int count = 0;
+        for (Task task : array) {
+            if (task instanceof Epic epic) {
+                loadedEpics.add(epic);
+                continue;
+            }
+            if (task instanceof Subtask subtask) {
+                subtasks.put(subtask);
+            } else {
+                tasks.put(task);
+            }
+            ids[count] = task.getId();
+            states[count++] = IndexedState.of(task);
+        }
+        loadIndexed(ids, states, loadedEpics);
+    }
+
+    // Заполнение индексов пустого менеджера по состояниям задач и подзадач, которые уже лежат
+    // в своих хранилищах; сами задачи при этом не читаются. ids идут по возрастанию, states -
+    // их состояния. Эпики (тоже по возрастанию ID) кладутся в хранилище здесь: подзадачи
+    // учитываются в них до того, как эпики попадают в индекс статусов, поэтому индексы ID
+    // и статусов заполняются дозаписью в конец. Интервалы сортируются один раз
+    // и передаются в индексы по времени целиком
+    void loadIndexed(int[] ids, IndexedState[] states, List<Epic> loadedEpics) {
+        checkEmpty();
+        epics.ensureCapacity(loadedEpics.size());
+        indexedStates.ensureCapacity(ids.length + loadedEpics.size());
+        for (Epic epic : loadedEpics) {
+            epics.put(epic);
+        }
+
+        List<TimeSlot> timed = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            IndexedState state = states[i];
+            addToIndexes(ids[i], state);
+            if (state.slot() != null) {
+                timed.add(state.slot());
+            }
+            if (state.type() != TaskType.SUBTASK) {
+                continue;
+            }
+            Epic epic = epics.get(state.epicId());
+            if (epic != null && epic.addSubtaskId(ids[i])) {
+                epic.updateSubtaskStatus(null, state.status());
+                if (state.slot() != null) {
+                    epic.addSubtaskTime(state.slot().start(), state.slot().end());
+                }
+            }
+        }
+        for (Epic epic : loadedEpics) {
+            addToIndexes(epic.getId(), IndexedState.of(epic));
+        }
+
+        TimeSlot[] byTime = timed.toArray(new TimeSlot[0]);
+        Arrays.parallelSort(byTime);
+        prioritizedTasks.addAll(Arrays.asList(byTime));
+        overlapIndex.addAll(Arrays.asList(byTime));
+    }
+
+    private void checkEmpty() {
+        if (!indexedStates.isEmpty()) {
+            throw new IllegalStateException("Загрузка возможна только в пустой менеджер");
+        }
+    }
+
+    // Применение итоговых версий задач (null - задача удалена) без проверок. Используется для
+    // проверенных транзакций и для восстановления сохраненного состояния, поэтому порядок
+    // не важен: подзадачи, записанные раньше своего эпика, привязываются к нему в конце.
+    // Подзадача, эпика которой в итоге нет, отбрасывается: так бывает, когда журнал
+    // применяется к снимку, записанному уже после удаления эпика
+    void restore(Map<Integer, Task> changes) {
+        for (Map.Entry<Integer, Task> entry : changes.entrySet()) {
+            Task task = entry.getValue();
+            if (task == null) {
+                int id = entry.getKey();
+                if (!removeTask(id) && !removeEpic(id)) {
+                    removeSubtask(id);
+                }
+            } else if (task instanceof Subtask subtask) {
+                putSubtask(subtask);
+            } else if (task instanceof Epic epic) {
+                putEpic(epic);
+            } else {
+                putTask(task);
+            }
+        }
+
+        for (Task task : changes.values()) {
+            if (task instanceof Subtask subtask) {
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic == null) {
+                    removeSubtask(subtask.getId());
+                } else if (!epic.containsSubtaskId(subtask.getId())) {
+                    linkSubtask(subtask, indexedStates.get(subtask.getId()));
+                }
             }
-            historyManager.remove(id);
-            updatePrioritizedTasks();
-            return true;
         }
-        return false;
     }
 
     // Метод для получения истории просмотров задач
@@ -219,75 +412,418 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
+    @Override
+    public List<Task> getHistory(int afterId, int limit) {
+        return historyManager.getHistory(afterId, limit);
+    }
+
     @Override
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+        return resolve(prioritizedTasks, prioritizedTasks.size());
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(int afterId, int limit) {
+        NavigableSet<TimeSlot> page = prioritizedTasks;
+        if (afterId != 0) {
+            IndexedState state = indexedStates.get(afterId);
+            if (state == null || state.slot() == null) {
+                throw new IllegalArgumentException(
+                        "Задача с ID " + afterId + " отсутствует в списке по приоритету");
+            }
+            page = prioritizedTasks.tailSet(state.slot(), false);
+        }
+        return resolve(page, limit);
     }
 
-    // Приватный метод для обновления статуса эпика
-    private void updateEpicStatus(Epic epic) {
-        boolean allNew = true;
-        boolean allDone = true;
+    // Методы для выборки по интервалу времени
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return getWindow(from, to, 0, Integer.MAX_VALUE);
+    }
 
-        for (Integer subtaskId : epic.getSubtaskIds()) {
-            Subtask subtask = subtasks.get(subtaskId);
-            if (subtask != null) {
-                if (subtask.getStatus() != Status.NEW) {
-                    allNew = false;
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int afterId,
+            int limit) {
+        return getWindow(from, to, afterId, limit);
+    }
+
+    @Override
+    public List<Task> getNextTasks(LocalDateTime time, int limit) {
+        return resolve(prioritizedTasks.tailSet(lowerBound(time), true), limit);
+    }
+
+    @Override
+    public List<Task> getActiveTasks(LocalDateTime time) {
+        List<Task> result = new ArrayList<>(1);
+        Task running = findRunningTask(time);
+        if (running != null) {
+            result.add(running);
+        }
+        for (TimeSlot slot : prioritizedTasks.tailSet(lowerBound(time), true)) {
+            if (!slot.start().equals(time)) {
+                break;
+            }
+            if (slot.end().isAfter(time)) {
+                result.add(findTask(slot.id()));
+            }
+        }
+        return result;
+    }
+
+    // Приватный метод для страницы выборки по интервалу: первой идет задача, начатая до from
+    // и еще не завершенная, затем задачи, начатые в интервале. Страница после курсора
+    // продолжается по индексу с интервала задачи afterId, без построения всей выборки
+    private List<Task> getWindow(LocalDateTime from, LocalDateTime to, int afterId, int limit) {
+        List<Task> result = new ArrayList<>();
+        if (from != null && to != null && from.isAfter(to)) {
+            return result;
+        }
+        NavigableSet<TimeSlot> window = prioritizedTasks;
+        if (from != null) {
+            window = window.tailSet(lowerBound(from), true);
+        }
+        if (to != null) {
+            window = window.headSet(lowerBound(to), false);
+        }
+
+        IndexedState cursor = afterId != 0 ? indexedStates.get(afterId) : null;
+        if (cursor != null && cursor.slot() != null && window.contains(cursor.slot())) {
+            window = window.tailSet(cursor.slot(), false);
+        } else {
+            Task running = from != null ? findRunningTask(from) : null;
+            if (afterId == 0) {
+                if (running != null && limit > 0) {
+                    result.add(running);
                 }
-                if (subtask.getStatus() != Status.DONE) {
-                    allDone = false;
+            } else if (running == null || running.getId() != afterId) {
+                throw new IllegalArgumentException(
+                        "Задача с ID " + afterId + " отсутствует в выборке по интервалу");
+            }
+        }
+        result.addAll(resolve(window, limit - result.size()));
+        return result;
+    }
+
+    // Приватный метод: задачи первых limit интервалов из slots в порядке приоритета
+    private List<Task> resolve(Iterable<TimeSlot> slots, int limit) {
+        List<Task> result = new ArrayList<>(Math.min(limit, prioritizedTasks.size()));
+        for (TimeSlot slot : slots) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(findTask(slot.id()));
+        }
+        return result;
+    }
+
+    // Методы для выборки по статусу
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        IntSortedSet[] sets = new IntSortedSet[TaskType.values().length];
+        int[] positions = new int[sets.length];
+        int total = 0;
+        for (TaskType type : TaskType.values()) {
+            sets[type.ordinal()] = statusIndex.get(type).get(status);
+            total += sets[type.ordinal()].size();
+        }
+
+        // Слияние отсортированных множеств ID всех типов в общий порядок по ID
+        List<Task> result = new ArrayList<>(total);
+        while (result.size() < total) {
+            int next = -1;
+            for (int i = 0; i < sets.length; i++) {
+                if (positions[i] < sets[i].size() && (next < 0
+                        || sets[i].get(positions[i]) < sets[next].get(positions[next]))) {
+                    next = i;
                 }
             }
+            result.add(findTask(TaskType.values()[next], sets[next].get(positions[next]++)));
         }
+        return result;
+    }
 
-        if (allNew) {
-            epic.setStatus(Status.NEW);
-        } else if (allDone) {
-            epic.setStatus(Status.DONE);
-        } else {
-            epic.setStatus(Status.IN_PROGRESS);
+    @Override
+    public List<Task> getTasksByStatus(Status status, TaskType type) {
+        IntSortedSet ids = statusIndex.get(type).get(status);
+        List<Task> result = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            result.add(findTask(type, ids.get(i)));
         }
+        return result;
     }
 
-    // Приватный метод для обновления времени и длительности эпика
-    private void updateEpicTimesAndDuration(Epic epic) {
-        Duration totalDuration = Duration.ZERO;
-        LocalDateTime startTime = null;
-        LocalDateTime endTime = null;
+    @Override
+    public int countByStatus(Status status) {
+        int count = 0;
+        for (TaskType type : TaskType.values()) {
+            count += countByStatus(status, type);
+        }
+        return count;
+    }
 
-        for (Integer subtaskId : epic.getSubtaskIds()) {
-            Subtask subtask = subtasks.get(subtaskId);
-            if (subtask.getStartTime() == null) {
-                continue;
+    @Override
+    public int countByStatus(Status status, TaskType type) {
+        return statusIndex.get(type).get(status).size();
+    }
+
+    // Приватный метод для привязки подзадачи к эпику и пересчета статуса, времени и
+    // длительности эпика; прежнее состояние подзадачи заменяется в эпике новым
+    private void linkSubtask(Subtask subtask, IndexedState previous) {
+        if (previous != null && previous.epicId() != subtask.getEpicId()) {
+            unlinkSubtask(subtask.getId(), previous);
+            previous = null;
+        }
+
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic == null) {
+            return;
+        }
+        if (epic.addSubtaskId(subtask.getId())) {
+            previous = null;
+        }
+
+        IndexedState state = indexedStates.get(subtask.getId());
+        epic.updateSubtaskStatus(previous != null ? previous.status() : null, state.status());
+        if (previous != null && previous.slot() != null) {
+            epic.removeSubtaskTime(previous.slot().start(), previous.slot().end());
+        }
+        if (state.slot() != null) {
+            epic.addSubtaskTime(state.slot().start(), state.slot().end());
+        }
+        indexTask(epic);
+    }
+
+    // Приватный метод для отвязки подзадачи от эпика, в котором она была учтена
+    private void unlinkSubtask(int subtaskId, IndexedState previous) {
+        Epic epic = epics.get(previous.epicId());
+        if (epic != null && epic.removeSubtaskId(subtaskId)) {
+            epic.updateSubtaskStatus(previous.status(), null);
+            if (previous.slot() != null) {
+                epic.removeSubtaskTime(previous.slot().start(), previous.slot().end());
             }
+            indexTask(epic);
+        }
+    }
 
-            totalDuration = totalDuration.plus(subtask.getDuration());
-            LocalDateTime subtaskStart = subtask.getStartTime();
-            LocalDateTime subtaskEnd = subtask.getEndTime();
-            if (startTime == null || (subtaskStart != null && subtaskStart.isBefore(
-                    startTime))) {
-                startTime = subtaskStart;
+    // Приватный метод для учета задачи в индексах; возвращает прежнее состояние задачи
+    private IndexedState indexTask(Task task) {
+        IndexedState previous = indexedStates.get(task.getId());
+        IndexedState state = IndexedState.of(task);
+        unindexSlot(previous);
+        if (state.slot() != null) {
+            prioritizedTasks.add(state.slot());
+            overlapIndex.add(state.slot());
+        }
+        if (previous == null || previous.type() != state.type()) {
+            if (previous != null) {
+                idIndex.get(previous.type()).remove(task.getId());
             }
-            if (endTime == null || (subtaskEnd != null && subtaskEnd.isAfter(
-                    endTime))) {
-                endTime = subtaskEnd;
+            idIndex.get(state.type()).add(task.getId());
+        }
+        if (previous == null || previous.type() != state.type()
+                || previous.status() != state.status()) {
+            unindexStatus(task.getId(), previous);
+            if (state.status() != null) {
+                statusIndex.get(state.type()).get(state.status()).add(task.getId());
             }
         }
 
-        epic.setDuration(totalDuration);
-        epic.setStartTime(startTime);
-        epic.setEndTime(endTime);
+        indexedStates.put(task.getId(), state);
+        return previous;
     }
 
+    // Приватный метод для учета новой задачи в индексах ID и статусов при загрузке
+    private void addToIndexes(int id, IndexedState state) {
+        indexedStates.put(id, state);
+        idIndex.get(state.type()).add(id);
+        if (state.status() != null) {
+            statusIndex.get(state.type()).get(state.status()).add(id);
+        }
+    }
 
-    // Приватный метод для обновления задач, отсортированных по времени по времени начала
-    private void updatePrioritizedTasks() {
-        prioritizedTasks.clear();
-        tasks.values().stream().filter(task -> task.getStartTime() != null)
-                .forEach(prioritizedTasks::add);
-        subtasks.values().stream().filter(task -> task.getStartTime() != null)
-                .forEach(prioritizedTasks::add);
+    // Приватный метод для удаления задачи из индексов; возвращает прежнее состояние задачи
+    private IndexedState unindexTask(int id) {
+        IndexedState previous = indexedStates.remove(id);
+        unindexSlot(previous);
+        unindexStatus(id, previous);
+        if (previous != null) {
+            idIndex.get(previous.type()).remove(id);
+        }
+        return previous;
+    }
+
+    private void unindexSlot(IndexedState state) {
+        if (state != null && state.slot() != null) {
+            prioritizedTasks.remove(state.slot());
+            overlapIndex.remove(state.slot());
+        }
+    }
+
+    private void unindexStatus(int id, IndexedState state) {
+        if (state != null && state.status() != null) {
+            statusIndex.get(state.type()).get(state.status()).remove(id);
+        }
+    }
+
+    // Приватный метод для поиска задачи, начатой до момента time и еще не завершенной.
+    // Задачи ненулевой длительности в индексе не пересекаются, поэтому такой может быть только
+    // ближайшая к time задача ненулевой длительности; задачи нулевой длительности пропускаются.
+    private Task findRunningTask(LocalDateTime time) {
+        for (TimeSlot slot : prioritizedTasks.headSet(lowerBound(time), false).descendingSet()) {
+            if (slot.start().isBefore(slot.end())) {
+                return slot.end().isAfter(time) ? findTask(slot.id()) : null;
+            }
+        }
+        return null;
+    }
+
+    // Ключ, предшествующий в индексе всем задачам, которые начинаются в момент time
+    private static TimeSlot lowerBound(LocalDateTime time) {
+        return new TimeSlot(time, time, Integer.MIN_VALUE);
+    }
+
+    // Приватный метод для получения страницы задач одного типа по возрастанию ID
+    private <T extends Task> List<T> getPage(TaskType type, TaskStorage<T> storage, int afterId,
+            int limit) {
+        IntSortedSet ids = idIndex.get(type);
+        int from = ids.indexAfter(afterId);
+        int to = (int) Math.min(ids.size(), (long) from + limit);
+        List<T> result = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            result.add(storage.get(ids.get(i)));
+        }
+        return result;
+    }
+
+    // Задача любого типа по ID без записи в историю просмотров; null, если задачи нет
+    Task findTask(int id) {
+        IndexedState state = indexedStates.get(id);
+        return state != null ? findTask(state.type(), id) : null;
+    }
+
+    // Приватный метод для получения задачи по ID из хранилища ее типа
+    private Task findTask(TaskType type, int id) {
+        return switch (type) {
+            case TASK -> tasks.get(id);
+            case EPIC -> epics.get(id);
+            case SUBTASK -> subtasks.get(id);
+        };
+    }
+
+    // Приватные методы записи без проверок; общие для одиночных и пакетных операций
+    private void putTask(Task task) {
+        tasks.put(task);
+        indexTask(task);
+    }
+
+    private List<Task> putTasks(Collection<Task> batch) {
+        validateTasks(batch, List.of());
+        for (Task task : batch) {
+            putTask(task);
+        }
+        return new ArrayList<>(batch);
+    }
+
+    private boolean removeTask(int id) {
+        boolean removed = tasks.remove(id);
+        if (removed) {
+            unindexTask(id);
+            historyManager.remove(id);
+        }
+        return removed;
+    }
+
+    // Новая версия уже сохраненного эпика получает его подзадачи вместе со статусом, временем
+    // и длительностью, выведенными из них; прежний объект не меняется и остается в истории
+    private void putEpic(Epic epic) {
+        Epic stored = epics.get(epic.getId());
+        if (stored != null && stored != epic) {
+            epic.copySubtasksFrom(stored);
+        }
+        epics.put(epic);
+        indexTask(epic);
+    }
+
+    private boolean removeEpic(int id) {
+        Epic epic = epics.get(id);
+        if (epic != null) {
+            epics.remove(id);
+            epic.forEachSubtaskId(subtaskId -> {
+                subtasks.remove(subtaskId);
+                historyManager.remove(subtaskId);
+                unindexTask(subtaskId);
+            });
+
+            historyManager.remove(id);
+            unindexTask(id);
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private void putSubtask(Subtask subtask) {
+        subtasks.put(subtask);
+        linkSubtask(subtask, indexTask(subtask));
+    }
+
+    private List<Subtask> putSubtasks(Collection<Subtask> batch) {
+        validateTasks(batch, List.of());
+        for (Subtask subtask : batch) {
+            putSubtask(subtask);
+        }
+        return new ArrayList<>(batch);
+    }
+
+    private boolean removeSubtask(int id) {
+        if (subtasks.remove(id)) {
+            unlinkSubtask(id, unindexTask(id));
+            historyManager.remove(id);
+            return true;
+        }
+        return false;
+    }
+
+    // Приватный метод для проверки пакета задач за один проход: каждая задача сверяется
+    // с хранилищем и с уже проверенными задачами пакета. Прежние интервалы задач пакета
+    // и удаляемых задач на время проверки исключаются из индекса, чтобы задачи могли
+    // обменяться временем или занять время удаляемых
+    private void validateTasks(Collection<? extends Task> batch, Collection<Integer> removedIds) {
+        IntMap<TimeSlot> previousSlots = new IntMap<>();
+        for (Task task : batch) {
+            liftSlot(task.getId(), previousSlots);
+        }
+        for (int id : removedIds) {
+            liftSlot(id, previousSlots);
+        }
+
+        try {
+            IntervalTree batchIndex = new IntervalTree();
+            for (Task task : batch) {
+                if (task.getStartTime() == null || task.getDuration() == null) {
+                    continue;
+                }
+                if (overlapIndex.overlaps(task.getStartTime(), task.getEndTime(), task.getId())
+                        || batchIndex.overlaps(task.getStartTime(), task.getEndTime(),
+                        task.getId())) {
+                    throw new OverlapException("Задача с ID " + task.getId()
+                            + " пересекается по времени с другой задачей");
+                }
+                batchIndex.add(TimeSlot.of(task));
+            }
+        } finally {
+            previousSlots.values().forEach(overlapIndex::add);
+        }
+    }
+
+    private void liftSlot(int id, IntMap<TimeSlot> previousSlots) {
+        IndexedState state = indexedStates.get(id);
+        if (state != null && state.slot() != null && !previousSlots.containsKey(id)) {
+            overlapIndex.remove(state.slot());
+            previousSlots.put(id, state.slot());
+        }
     }
 
     // Приватный метод для проверки пересечения задачи с другой задачей по времени
@@ -296,21 +832,112 @@ public class InMemoryTaskManager implements TaskManager {
             return;
         }
 
-        LocalDateTime newStart = newTask.getStartTime();
-        LocalDateTime newEnd = newTask.getEndTime();
+        if (overlapIndex.overlaps(newTask.getStartTime(), newTask.getEndTime(),
+                newTask.getId())) {
+            throw new OverlapException("Задача пересекается по времени с другой задачей");
+        }
+    }
+
+    // Накопленные изменения транзакции: итоговое состояние каждой затронутой задачи, по которому
+    // при фиксации проверяются эпики подзадач и пересечения и которое затем применяется целиком
+    private class Transaction implements TaskTransaction {
 
-        boolean hasOverlap = prioritizedTasks.stream()
-                .anyMatch(task -> {
-                    if (task.getId() == newTask.getId()) {
-                        return false;
-                    }
-                    LocalDateTime start = task.getStartTime();
-                    LocalDateTime end = task.getEndTime();
-                    return newStart.isBefore(end) && newEnd.isAfter(start);
-                });
+        private final Map<Integer, Task> staged = new LinkedHashMap<>();
 
-        if (hasOverlap) {
-            throw new OverlapException("Задача пересекается по времени с другой задачей");
+        @Override
+        public void createTask(Task task) {
+            staged.put(task.getId(), task);
+        }
+
+        @Override
+        public void updateTask(Task task) {
+            staged.put(task.getId(), task);
+        }
+
+        @Override
+        public void deleteTask(int id) {
+            if (holds(TaskType.TASK, id)) {
+                staged.put(id, null);
+            }
+        }
+
+        @Override
+        public void createEpic(Epic epic) {
+            staged.put(epic.getId(), epic);
+        }
+
+        @Override
+        public void updateEpic(Epic epic) {
+            staged.put(epic.getId(), epic);
+        }
+
+        // Вместе с эпиком удаляются подзадачи, которые будут в нем к моменту удаления
+        @Override
+        public void deleteEpic(int id) {
+            if (!holds(TaskType.EPIC, id)) {
+                return;
+            }
+
+            Epic epic = epics.get(id);
+            if (epic != null) {
+                epic.forEachSubtaskId(subtaskId -> staged.putIfAbsent(subtaskId, null));
+            }
+            staged.replaceAll((taskId, task) ->
+                    task instanceof Subtask subtask && subtask.getEpicId() == id ? null : task);
+            staged.put(id, null);
+        }
+
+        @Override
+        public void createSubtask(Subtask subtask) {
+            staged.put(subtask.getId(), subtask);
+        }
+
+        @Override
+        public void updateSubtask(Subtask subtask) {
+            staged.put(subtask.getId(), subtask);
+        }
+
+        @Override
+        public void deleteSubtask(int id) {
+            if (holds(TaskType.SUBTASK, id)) {
+                staged.put(id, null);
+            }
+        }
+
+        // Есть ли к этому моменту транзакции задача с таким ID и типом
+        private boolean holds(TaskType type, int id) {
+            if (staged.containsKey(id)) {
+                Task task = staged.get(id);
+                return task != null && task.getType() == type;
+            }
+            return findTask(type, id) != null;
+        }
+
+        private void validate() {
+            List<Task> timed = new ArrayList<>();
+            List<Integer> removedIds = new ArrayList<>();
+            for (Map.Entry<Integer, Task> entry : staged.entrySet()) {
+                Task task = entry.getValue();
+                if (task == null) {
+                    removedIds.add(entry.getKey());
+                } else if (task instanceof Subtask subtask) {
+                    validateEpic(subtask);
+                    timed.add(subtask);
+                } else if (task.getType() == TaskType.TASK) {
+                    timed.add(task);
+                }
+            }
+            validateTasks(timed, removedIds);
+        }
+
+        private void validateEpic(Subtask subtask) {
+            int epicId = subtask.getEpicId();
+            boolean exists = staged.containsKey(epicId) ? staged.get(epicId) instanceof Epic
+                    : epics.get(epicId) != null;
+            if (!exists) {
+                throw new TransactionException("Эпик с ID " + epicId + " для подзадачи с ID "
+                        + subtask.getId() + " не существует");
+            }
         }
     }
 }
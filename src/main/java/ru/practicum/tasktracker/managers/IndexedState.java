@@ -0,0 +1,19 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.enums.TaskType;
+import main.java.ru.practicum.tasktracker.tasks.Subtask;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Состояние задачи, под которым она учтена в индексах менеджера. Задачу могут изменить снаружи
+// до вызова update, поэтому прежние значения полей берутся отсюда, а не из самой задачи.
+// Эпики в индексе по времени не участвуют: их время выводится из подзадач.
+record IndexedState(TaskType type, Status status, int epicId, TimeSlot slot) {
+
+    static IndexedState of(Task task) {
+        int epicId = task instanceof Subtask subtask ? subtask.getEpicId() : 0;
+        TimeSlot slot = task.getType() != TaskType.EPIC && task.getStartTime() != null
+                ? TimeSlot.of(task) : null;
+        return new IndexedState(task.getType(), task.getStatus(), epicId, slot);
+    }
+}
@@ -0,0 +1,196 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Сбалансированное (AVL) дерево интервалов [start, end), упорядоченное по TimeSlot.
+// Каждый узел хранит максимальное время окончания в своем поддереве, что позволяет
+// найти пересечение за O(log n + k), где k - число пропущенных пересечений.
+class IntervalTree implements OverlapIndex {
+
+    private IntervalNode root;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public void add(TimeSlot slot) {
+        root = insert(root, slot);
+    }
+
+    // В пустое дерево отсортированные интервалы укладываются сразу сбалансированным деревом
+    // за O(n), без поворотов при каждой вставке
+    @Override
+    public void addAll(List<TimeSlot> sorted) {
+        if (root != null) {
+            OverlapIndex.super.addAll(sorted);
+            return;
+        }
+        root = build(sorted, 0, sorted.size());
+        size = sorted.size();
+    }
+
+    @Override
+    public void remove(TimeSlot slot) {
+        root = delete(root, slot);
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    @Override
+    public boolean overlaps(LocalDateTime start, LocalDateTime end, int excludeId) {
+        return findOverlap(root, start, end, excludeId);
+    }
+
+    private boolean findOverlap(IntervalNode node, LocalDateTime start, LocalDateTime end,
+            int excludeId) {
+        if (node == null || !start.isBefore(node.maxEnd)) {
+            return false;
+        }
+        if (findOverlap(node.left, start, end, excludeId)) {
+            return true;
+        }
+
+        TimeSlot slot = node.slot;
+        if (!slot.start().isBefore(end)) {
+            // Все интервалы правого поддерева начинаются не раньше окончания искомого
+            return false;
+        }
+        if (slot.id() != excludeId && start.isBefore(slot.end()) && end.isAfter(slot.start())) {
+            return true;
+        }
+
+        return findOverlap(node.right, start, end, excludeId);
+    }
+
+    private IntervalNode insert(IntervalNode node, TimeSlot slot) {
+        if (node == null) {
+            size++;
+            return new IntervalNode(slot);
+        }
+
+        int cmp = slot.compareTo(node.slot);
+        if (cmp < 0) {
+            node.left = insert(node.left, slot);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, slot);
+        } else {
+            node.slot = slot;
+        }
+
+        return balance(node);
+    }
+
+    private IntervalNode build(List<TimeSlot> sorted, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+
+        int middle = (from + to) >>> 1;
+        IntervalNode node = new IntervalNode(sorted.get(middle));
+        node.left = build(sorted, from, middle);
+        node.right = build(sorted, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    private IntervalNode delete(IntervalNode node, TimeSlot slot) {
+        if (node == null) {
+            return null;
+        }
+
+        int cmp = slot.compareTo(node.slot);
+        if (cmp < 0) {
+            node.left = delete(node.left, slot);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, slot);
+        } else {
+            if (node.left == null || node.right == null) {
+                size--;
+                return node.left != null ? node.left : node.right;
+            }
+
+            IntervalNode successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.slot = successor.slot;
+            node.right = delete(node.right, successor.slot);
+        }
+
+        return balance(node);
+    }
+
+    private IntervalNode balance(IntervalNode node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private IntervalNode rotateLeft(IntervalNode node) {
+        IntervalNode pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private IntervalNode rotateRight(IntervalNode node) {
+        IntervalNode pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(IntervalNode node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        LocalDateTime maxEnd = node.slot.end();
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(IntervalNode node) {
+        return node != null ? node.height : 0;
+    }
+
+    private static class IntervalNode {
+
+        TimeSlot slot;
+        LocalDateTime maxEnd;
+        int height;
+        IntervalNode left;
+        IntervalNode right;
+
+        IntervalNode(TimeSlot slot) {
+            this.slot = slot;
+            this.maxEnd = slot.end();
+            this.height = 1;
+        }
+    }
+}
@@ -0,0 +1,1072 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.enums.TaskType;
+import main.java.ru.practicum.tasktracker.exceptions.ManagerLoadException;
+import main.java.ru.practicum.tasktracker.exceptions.ManagerSaveException;
+import main.java.ru.practicum.tasktracker.exceptions.OverlapException;
+import main.java.ru.practicum.tasktracker.exceptions.TransactionException;
+import main.java.ru.practicum.tasktracker.tasks.*;
+
+// Менеджер, хранящий задачи во встраиваемой базе данных через JDBC (H2 или SQLite в файловом
+// режиме, без отдельного сервера), для объемов, которые неудобно держать в куче целиком.
+// Задачи всех типов лежат в одной таблице tasks с индексами по ID, эпику, статусу, времени
+// начала и окончания, а в памяти остается только история просмотров. Статус и время эпика
+// пересчитываются агрегирующим запросом по подзадачам при их изменении и хранятся в строке эпика.
+// Время хранится в наносекундах от 1970-01-01T00:00 по UTC, то есть в пределах 1677-2262 годов.
+// Каждое изменение выполняется в одной транзакции базы: задачи записываются пакетами
+// PreparedStatement, затем записанные интервалы проверяются на пересечения запросами к индексу
+// времени окончания, и при ошибке транзакция откатывается целиком. Интервалы задач в базе
+// не пересекаются, поэтому проверка просматривает индекс вперед от начала интервала только
+// до первой задачи, начатой не раньше его конца. Индекс просматривается по возрастанию:
+// H2 не умеет читать индекс в обратном порядке и сортировал бы весь диапазон.
+// Как и InMemoryTaskManager, менеджер не рассчитан на одновременную работу из нескольких
+// потоков.
+public class JdbcTaskManager implements TaskManager, AutoCloseable {
+
+    // Число строк в одном пакете PreparedStatement и число ID в одном условии IN
+    private static final int BATCH_SIZE = 1000;
+    private static final int IN_LIMIT = 100;
+    // Число строк, читаемых за один запрос при обходе индекса времени окончания
+    private static final int WALK_PAGE = 16;
+    private static final long NANOS = 1_000_000_000L;
+
+    private static final String COLUMNS =
+            "id, type, title, description, status, duration, start_time, end_time, epic_id";
+    private static final String TIMED = "type <> 'EPIC' AND start_time IS NOT NULL";
+    private static final List<String> SCHEMA = List.of(
+            "CREATE TABLE IF NOT EXISTS tasks (id INTEGER PRIMARY KEY, type VARCHAR(8) NOT NULL, "
+                    + "title VARCHAR, description VARCHAR, status VARCHAR(16), duration BIGINT, "
+                    + "start_time BIGINT, end_time BIGINT, epic_id INTEGER)",
+            "CREATE INDEX IF NOT EXISTS tasks_type ON tasks (type, id)",
+            "CREATE INDEX IF NOT EXISTS tasks_epic ON tasks (epic_id, id)",
+            "CREATE INDEX IF NOT EXISTS tasks_status ON tasks (status, type, id)",
+            "CREATE INDEX IF NOT EXISTS tasks_start ON tasks (start_time, id)",
+            "CREATE INDEX IF NOT EXISTS tasks_end ON tasks (end_time, id)");
+
+    private final Connection connection;
+    private final HistoryManager historyManager = Managers.getDefaultHistory();
+
+    // url - адрес встраиваемой базы, например jdbc:h2:./tasks или jdbc:sqlite:tasks.db;
+    // драйвер базы должен быть в classpath
+    public JdbcTaskManager(String url) {
+        try {
+            connection = DriverManager.getConnection(url);
+        } catch (SQLException e) {
+            throw new ManagerLoadException("Не удалось открыть базу задач: " + e.getMessage());
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            try {
+                connection.close();
+            } catch (SQLException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw new ManagerLoadException("Не удалось создать таблицы задач: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            connection.commit();
+            connection.close();
+        } catch (SQLException e) {
+            throw new ManagerSaveException("Не удалось закрыть базу задач: " + e.getMessage());
+        }
+    }
+
+    // Методы для простых задач
+    @Override
+    public List<Task> getTasks() {
+        return getPage(Task.class, TaskType.TASK, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> getTasks(int afterId, int limit) {
+        return getPage(Task.class, TaskType.TASK, afterId, limit);
+    }
+
+    @Override
+    public void deleteTasks() {
+        mutate(() -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM tasks WHERE type = 'TASK'");
+            }
+            return null;
+        });
+        for (Task task : historyManager.getHistory()) {
+            if (task.getType() == TaskType.TASK) {
+                historyManager.remove(task.getId());
+            }
+        }
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return view(find(Task.class, TaskType.TASK, id));
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        putAll(List.of(task), true);
+        return task;
+    }
+
+    @Override
+    public Task updateTask(Task task) {
+        putAll(List.of(task), true);
+        return task;
+    }
+
+    @Override
+    public boolean deleteTask(int id) {
+        return deleteAll(TaskType.TASK, List.of(id)) > 0;
+    }
+
+    @Override
+    public List<Task> createTasks(Collection<Task> tasks) {
+        return putAll(tasks, false);
+    }
+
+    @Override
+    public List<Task> updateTasks(Collection<Task> tasks) {
+        return putAll(tasks, false);
+    }
+
+    @Override
+    public int deleteTasks(Collection<Integer> ids) {
+        return deleteAll(TaskType.TASK, ids);
+    }
+
+    // Методы для эпиков
+    @Override
+    public List<Epic> getEpics() {
+        return getPage(Epic.class, TaskType.EPIC, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Epic> getEpics(int afterId, int limit) {
+        return getPage(Epic.class, TaskType.EPIC, afterId, limit);
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return view(find(Epic.class, TaskType.EPIC, id));
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        putAll(List.of(epic), true);
+        return epic;
+    }
+
+    @Override
+    public List<Epic> createEpics(Collection<Epic> epics) {
+        return putAll(epics, false);
+    }
+
+    @Override
+    public Epic updateEpic(Epic epic) {
+        putAll(List.of(epic), true);
+        return epic;
+    }
+
+    @Override
+    public boolean deleteEpic(int id) {
+        return deleteAll(TaskType.EPIC, List.of(id)) > 0;
+    }
+
+    // Методы для подзадач
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        if (storedType(epicId) != TaskType.EPIC) {
+            return new ArrayList<>();
+        }
+        return select(Subtask.class, "SELECT " + COLUMNS
+                + " FROM tasks WHERE epic_id = ? AND type = 'SUBTASK' ORDER BY id", epicId);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return getPage(Subtask.class, TaskType.SUBTASK, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(int afterId, int limit) {
+        return getPage(Subtask.class, TaskType.SUBTASK, afterId, limit);
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return view(find(Subtask.class, TaskType.SUBTASK, id));
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        putAll(List.of(subtask), true);
+        return subtask;
+    }
+
+    @Override
+    public Subtask updateSubtask(Subtask subtask) {
+        putAll(List.of(subtask), true);
+        return subtask;
+    }
+
+    @Override
+    public boolean deleteSubtask(int id) {
+        return deleteAll(TaskType.SUBTASK, List.of(id)) > 0;
+    }
+
+    @Override
+    public List<Subtask> createSubtasks(Collection<Subtask> subtasks) {
+        return putAll(subtasks, false);
+    }
+
+    @Override
+    public List<Subtask> updateSubtasks(Collection<Subtask> subtasks) {
+        return putAll(subtasks, false);
+    }
+
+    @Override
+    public int deleteSubtasks(Collection<Integer> ids) {
+        return deleteAll(TaskType.SUBTASK, ids);
+    }
+
+    // Метод для атомарного применения набора изменений: эпики подзадач и пересечения внутри
+    // транзакции проверяются до записи, пересечения с остальными задачами - после
+    @Override
+    public void inTransaction(Consumer<TaskTransaction> action) {
+        Transaction transaction = new Transaction();
+        action.accept(transaction);
+        List<Task> timed = transaction.validate();
+        List<Integer> removed = new ArrayList<>();
+        mutate(() -> {
+            write(transaction.staged, removed);
+            validateWritten(timed, false);
+            return null;
+        });
+        removed.forEach(historyManager::remove);
+    }
+
+    // Метод для получения истории просмотров задач; задачи перечитываются из базы,
+    // чтобы история показывала их текущее состояние
+    @Override
+    public List<Task> getHistory() {
+        return refresh(historyManager.getHistory());
+    }
+
+    @Override
+    public List<Task> getHistory(int afterId, int limit) {
+        return refresh(historyManager.getHistory(afterId, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return select(Task.class, "SELECT " + COLUMNS + " FROM tasks WHERE " + TIMED
+                + " ORDER BY start_time, id");
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(int afterId, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        if (afterId == 0) {
+            return select(Task.class, "SELECT " + COLUMNS + " FROM tasks WHERE " + TIMED
+                    + " ORDER BY start_time, id LIMIT ?", limit);
+        }
+
+        List<Long> cursor = selectLongs("SELECT start_time FROM tasks WHERE id = ? AND " + TIMED,
+                afterId);
+        if (cursor.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Задача с ID " + afterId + " отсутствует в списке по приоритету");
+        }
+        // Условие start_time >= ? позволяет базе начать просмотр индекса с курсора
+        long start = cursor.getFirst();
+        return select(Task.class, "SELECT " + COLUMNS + " FROM tasks WHERE " + TIMED
+                + " AND start_time >= ? AND (start_time > ? OR id > ?)"
+                + " ORDER BY start_time, id LIMIT ?", start, start, afterId, limit);
+    }
+
+    // Методы для выборки по интервалу времени
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return getPrioritizedTasks(from, to, 0, Integer.MAX_VALUE);
+    }
+
+    // Страница после курсора продолжается по индексу с времени начала задачи afterId,
+    // как в getPrioritizedTasks(afterId, limit)
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int afterId,
+            int limit) {
+        List<Task> result = new ArrayList<>();
+        if (limit <= 0 || from != null && to != null && from.isAfter(to)) {
+            return result;
+        }
+        StringBuilder range = new StringBuilder(TIMED);
+        List<Object> parameters = new ArrayList<>();
+        if (from != null) {
+            range.append(" AND start_time >= ?");
+            parameters.add(toNanos(from));
+        }
+        if (to != null) {
+            range.append(" AND start_time < ?");
+            parameters.add(toNanos(to));
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM tasks WHERE ")
+                .append(range);
+        List<Long> cursor = List.of();
+        if (afterId != 0) {
+            List<Object> cursorParameters = new ArrayList<>(parameters);
+            cursorParameters.addFirst(afterId);
+            cursor = selectLongs("SELECT start_time FROM tasks WHERE id = ? AND " + range,
+                    cursorParameters.toArray());
+        }
+        if (!cursor.isEmpty()) {
+            long start = cursor.getFirst();
+            sql.append(" AND start_time >= ? AND (start_time > ? OR id > ?)");
+            parameters.add(start);
+            parameters.add(start);
+            parameters.add(afterId);
+        } else {
+            Task running = from != null ? findRunningTask(toNanos(from)) : null;
+            if (afterId == 0) {
+                if (running != null) {
+                    result.add(running);
+                }
+            } else if (running == null || running.getId() != afterId) {
+                throw new IllegalArgumentException(
+                        "Задача с ID " + afterId + " отсутствует в выборке по интервалу");
+            }
+        }
+        if (result.size() < limit) {
+            parameters.add(limit - result.size());
+            result.addAll(select(Task.class, sql.append(" ORDER BY start_time, id LIMIT ?")
+                    .toString(), parameters.toArray()));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getNextTasks(LocalDateTime time, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        return select(Task.class, "SELECT " + COLUMNS + " FROM tasks WHERE " + TIMED
+                + " AND start_time >= ? ORDER BY start_time, id LIMIT ?", toNanos(time), limit);
+    }
+
+    @Override
+    public List<Task> getActiveTasks(LocalDateTime time) {
+        List<Task> result = new ArrayList<>(1);
+        Task running = findRunningTask(toNanos(time));
+        if (running != null) {
+            result.add(running);
+        }
+        result.addAll(select(Task.class, "SELECT " + COLUMNS + " FROM tasks WHERE " + TIMED
+                + " AND start_time = ? AND end_time > ? ORDER BY id", toNanos(time),
+                toNanos(time)));
+        return result;
+    }
+
+    // Методы для выборки по статусу
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return select(Task.class, "SELECT " + COLUMNS + " FROM tasks WHERE status = ? ORDER BY id",
+                status.name());
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status, TaskType type) {
+        return select(Task.class, "SELECT " + COLUMNS
+                + " FROM tasks WHERE status = ? AND type = ? ORDER BY id", status.name(),
+                type.name());
+    }
+
+    @Override
+    public int countByStatus(Status status) {
+        return selectLongs("SELECT COUNT(*) FROM tasks WHERE status = ?", status.name())
+                .getFirst().intValue();
+    }
+
+    @Override
+    public int countByStatus(Status status, TaskType type) {
+        return selectLongs("SELECT COUNT(*) FROM tasks WHERE status = ? AND type = ?",
+                status.name(), type.name()).getFirst().intValue();
+    }
+
+    // Приватный метод для выполнения изменения в транзакции базы: при любой ошибке транзакция
+    // откатывается, и в базе не остается ни одной записи изменения
+    private <T> T mutate(SqlAction<T> action) {
+        try {
+            T result = action.run();
+            connection.commit();
+            return result;
+        } catch (SQLException e) {
+            rollback(e);
+            throw new ManagerSaveException("Не удалось записать задачи в базу: " + e.getMessage());
+        } catch (RuntimeException e) {
+            rollback(e);
+            throw e;
+        }
+    }
+
+    private void rollback(Exception cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    // Приватный метод для записи пакета задач с проверкой пересечений
+    private <T extends Task> List<T> putAll(Collection<T> batch, boolean single) {
+        validateBatch(batch);
+        Map<Integer, Task> changes = new LinkedHashMap<>();
+        for (T task : batch) {
+            changes.put(task.getId(), task);
+        }
+        mutate(() -> {
+            write(changes, new ArrayList<>());
+            validateWritten(changes.values(), single);
+            return null;
+        });
+        return new ArrayList<>(batch);
+    }
+
+    // Приватный метод для удаления задач одного типа; ID задач другого типа пропускаются
+    private int deleteAll(TaskType type, Collection<Integer> ids) {
+        List<Integer> removed = new ArrayList<>();
+        int count = mutate(() -> {
+            Map<Integer, Task> changes = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Stored> entry : findStored(ids).entrySet()) {
+                if (entry.getValue().type() == type) {
+                    changes.put(entry.getKey(), null);
+                }
+            }
+            write(changes, removed);
+            return changes.size();
+        });
+        removed.forEach(historyManager::remove);
+        return count;
+    }
+
+    // Приватный метод для записи итоговых версий задач (null - задача удалена) в текущей
+    // транзакции. Прежние строки удаляются и вставляются заново пакетами; вместе с эпиком
+    // удаляются его подзадачи. В removed добавляются ID всех удаленных задач
+    private void write(Map<Integer, Task> changes, List<Integer> removed) throws SQLException {
+        Map<Integer, Stored> stored = findStored(changes.keySet());
+        // Эпики, в которых изменился состав или состояние подзадач, и записанные эпики
+        Set<Integer> subtaskEpics = new HashSet<>();
+        Set<Integer> writtenEpics = new HashSet<>();
+
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM tasks WHERE id = ?")) {
+            int batched = 0;
+            for (Map.Entry<Integer, Task> entry : changes.entrySet()) {
+                int id = entry.getKey();
+                Stored previous = stored.get(id);
+                if (previous == null) {
+                    continue;
+                }
+                if (previous.type() == TaskType.SUBTASK) {
+                    subtaskEpics.add(previous.epicId());
+                }
+                if (entry.getValue() == null) {
+                    removed.add(id);
+                    if (previous.type() == TaskType.EPIC) {
+                        removed.addAll(deleteSubtasks(id));
+                    }
+                }
+                delete.setInt(1, id);
+                batched = addBatch(delete, batched);
+            }
+            delete.executeBatch();
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO tasks ("
+                + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            int batched = 0;
+            for (Task task : changes.values()) {
+                if (task == null) {
+                    continue;
+                }
+                bindTask(insert, task);
+                batched = addBatch(insert, batched);
+                if (task instanceof Subtask subtask) {
+                    subtaskEpics.add(subtask.getEpicId());
+                } else if (task instanceof Epic) {
+                    writtenEpics.add(task.getId());
+                }
+            }
+            insert.executeBatch();
+        }
+        refreshEpics(subtaskEpics, writtenEpics);
+    }
+
+    // Приватный метод для удаления подзадач эпика; возвращает их ID
+    private List<Integer> deleteSubtasks(int epicId) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id FROM tasks WHERE epic_id = ? AND type = 'SUBTASK'")) {
+            select.setInt(1, epicId);
+            try (ResultSet row = select.executeQuery()) {
+                while (row.next()) {
+                    ids.add(row.getInt(1));
+                }
+            }
+        }
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM tasks WHERE epic_id = ? AND type = 'SUBTASK'")) {
+            delete.setInt(1, epicId);
+            delete.executeUpdate();
+        }
+        return ids;
+    }
+
+    // Приватный метод для пересчета статуса, времени и длительности эпиков по подзадачам.
+    // Эпик без подзадач, у которого состав подзадач не менялся, сохраняет записанный статус
+    private void refreshEpics(Set<Integer> subtaskEpics, Set<Integer> writtenEpics)
+            throws SQLException {
+        Set<Integer> epicIds = new HashSet<>(subtaskEpics);
+        epicIds.addAll(writtenEpics);
+        try (PreparedStatement aggregate = connection.prepareStatement(
+                "SELECT status, COUNT(*), MIN(start_time), MAX(end_time), "
+                        + "SUM(end_time - start_time) FROM tasks "
+                        + "WHERE epic_id = ? AND type = 'SUBTASK' GROUP BY status");
+                PreparedStatement update = connection.prepareStatement("UPDATE tasks SET "
+                        + "status = ?, duration = ?, start_time = ?, end_time = ? "
+                        + "WHERE id = ? AND type = 'EPIC'")) {
+            int batched = 0;
+            for (int epicId : epicIds) {
+                int total = 0;
+                int newCount = 0;
+                int doneCount = 0;
+                Long start = null;
+                Long end = null;
+                long duration = 0;
+                aggregate.setInt(1, epicId);
+                try (ResultSet row = aggregate.executeQuery()) {
+                    while (row.next()) {
+                        int count = row.getInt(2);
+                        total += count;
+                        if (Status.NEW.name().equals(row.getString(1))) {
+                            newCount += count;
+                        } else if (Status.DONE.name().equals(row.getString(1))) {
+                            doneCount += count;
+                        }
+                        Long rowStart = readLong(row, 3);
+                        Long rowEnd = readLong(row, 4);
+                        if (rowStart != null) {
+                            start = start == null ? rowStart : Math.min(start, rowStart);
+                            end = end == null ? rowEnd : Math.max(end, rowEnd);
+                        }
+                        duration += row.getLong(5);
+                    }
+                }
+                if (total == 0 && !subtaskEpics.contains(epicId)) {
+                    continue;
+                }
+
+                Status status = newCount == total ? Status.NEW
+                        : doneCount == total ? Status.DONE : Status.IN_PROGRESS;
+                update.setString(1, status.name());
+                update.setLong(2, duration);
+                bindLong(update, 3, start);
+                bindLong(update, 4, end);
+                update.setInt(5, epicId);
+                batched = addBatch(update, batched);
+            }
+            update.executeBatch();
+        }
+    }
+
+    // Приватный метод для проверки пересечений внутри пакета до записи, как в InMemoryTaskManager
+    private static void validateBatch(Collection<? extends Task> batch) {
+        if (batch.size() < 2) {
+            return;
+        }
+        IntervalTree batchIndex = new IntervalTree();
+        for (Task task : batch) {
+            if (!isTimed(task)) {
+                continue;
+            }
+            if (batchIndex.overlaps(task.getStartTime(), task.getEndTime(), task.getId())) {
+                throw new OverlapException("Задача с ID " + task.getId()
+                        + " пересекается по времени с другой задачей");
+            }
+            batchIndex.add(TimeSlot.of(task));
+        }
+    }
+
+    // Приватный метод для проверки записанных задач на пересечение с остальными задачами базы
+    private void validateWritten(Collection<? extends Task> written, boolean single)
+            throws SQLException {
+        for (Task task : written) {
+            if (task != null && isTimed(task)
+                    && overlaps(toNanos(task.getStartTime()), toNanos(task.getEndTime()),
+                    task.getId())) {
+                throw new OverlapException(single
+                        ? "Задача пересекается по времени с другой задачей"
+                        : "Задача с ID " + task.getId()
+                                + " пересекается по времени с другой задачей");
+            }
+        }
+    }
+
+    private static boolean isTimed(Task task) {
+        return task.getType() != TaskType.EPIC && task.getStartTime() != null
+                && task.getDuration() != null;
+    }
+
+    // Приватный метод для проверки пересечения интервала [start, end) с задачами базы, кроме
+    // excludeId. Задача, завершенная после start, пересекается с интервалом, если начата раньше
+    // end; обход останавливается на первой задаче ненулевой длительности, начатой не раньше
+    // end: задачи после нее с ней не пересекаются, а значит начаты еще позже
+    private boolean overlaps(long start, long end, int excludeId) throws SQLException {
+        boolean[] found = new boolean[1];
+        walkForward(start, (id, taskStart, taskEnd) -> {
+            if (id == excludeId) {
+                return true;
+            }
+            if (taskStart < end) {
+                found[0] = true;
+                return false;
+            }
+            return taskEnd == taskStart;
+        });
+        return found[0];
+    }
+
+    // Приватный метод для поиска задачи, начатой до момента time и еще не завершенной.
+    // Такой может быть только первая завершающаяся после time задача ненулевой длительности
+    private Task findRunningTask(long time) {
+        int[] running = new int[1];
+        try {
+            walkForward(time, (id, taskStart, taskEnd) -> {
+                if (taskEnd == taskStart) {
+                    return true;
+                }
+                if (taskStart < time) {
+                    running[0] = id;
+                }
+                return false;
+            });
+        } catch (SQLException e) {
+            throw readFailure(e);
+        }
+        if (running[0] == 0) {
+            return null;
+        }
+        List<Task> found = select(Task.class, "SELECT " + COLUMNS + " FROM tasks WHERE id = ?",
+                running[0]);
+        return found.isEmpty() ? null : found.getFirst();
+    }
+
+    // Приватный метод для обхода задач, завершенных после after, по возрастанию времени
+    // окончания и ID. Задачи читаются страницами по индексу, пока visitor возвращает true
+    private void walkForward(long after, SlotVisitor visitor) throws SQLException {
+        try (PreparedStatement first = connection.prepareStatement("SELECT id, start_time, "
+                + "end_time FROM tasks WHERE end_time > ? AND type <> 'EPIC' "
+                + "ORDER BY end_time, id LIMIT " + WALK_PAGE);
+                PreparedStatement next = connection.prepareStatement("SELECT id, start_time, "
+                        + "end_time FROM tasks WHERE end_time >= ? AND (end_time > ? "
+                        + "OR id > ?) AND type <> 'EPIC' "
+                        + "ORDER BY end_time, id LIMIT " + WALK_PAGE)) {
+            PreparedStatement page = first;
+            first.setLong(1, after);
+            while (true) {
+                int rows = 0;
+                int lastId = 0;
+                long lastEnd = 0;
+                try (ResultSet row = page.executeQuery()) {
+                    while (row.next()) {
+                        rows++;
+                        lastId = row.getInt(1);
+                        lastEnd = row.getLong(3);
+                        if (!visitor.visit(lastId, row.getLong(2), lastEnd)) {
+                            return;
+                        }
+                    }
+                }
+                if (rows < WALK_PAGE) {
+                    return;
+                }
+                next.setLong(1, lastEnd);
+                next.setLong(2, lastEnd);
+                next.setInt(3, lastId);
+                page = next;
+            }
+        }
+    }
+
+    // Приватный метод для получения страницы задач одного типа по возрастанию ID
+    private <T extends Task> List<T> getPage(Class<T> type, TaskType taskType, int afterId,
+            int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT " + COLUMNS + " FROM tasks WHERE type = ? AND id > ? ORDER BY id";
+        return limit == Integer.MAX_VALUE ? select(type, sql, taskType.name(), afterId)
+                : select(type, sql + " LIMIT ?", taskType.name(), afterId, limit);
+    }
+
+    private <T extends Task> T find(Class<T> type, TaskType taskType, int id) {
+        List<T> found = select(type, "SELECT " + COLUMNS + " FROM tasks WHERE id = ? AND type = ?",
+                id, taskType.name());
+        return found.isEmpty() ? null : found.getFirst();
+    }
+
+    private <T extends Task> T view(T task) {
+        if (task != null) {
+            historyManager.add(task);
+        }
+        return task;
+    }
+
+    private List<Task> refresh(List<Task> viewed) {
+        List<Task> result = new ArrayList<>(viewed.size());
+        for (Task task : viewed) {
+            Task current = find(Task.class, task.getType(), task.getId());
+            if (current != null) {
+                result.add(current);
+            }
+        }
+        return result;
+    }
+
+    private TaskType storedType(int id) {
+        try {
+            Stored stored = findStored(List.of(id)).get(id);
+            return stored != null ? stored.type() : null;
+        } catch (SQLException e) {
+            throw readFailure(e);
+        }
+    }
+
+    // Приватный метод для выборки задач; эпикам выборки заполняются ID подзадач
+    private <T extends Task> List<T> select(Class<T> type, String sql, Object... parameters) {
+        List<T> result = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(sql)) {
+            bind(select, parameters);
+            try (ResultSet row = select.executeQuery()) {
+                while (row.next()) {
+                    result.add(type.cast(readTask(row)));
+                }
+            }
+            linkSubtasks(result);
+        } catch (SQLException e) {
+            throw readFailure(e);
+        }
+        return result;
+    }
+
+    private List<Long> selectLongs(String sql, Object... parameters) {
+        List<Long> result = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(sql)) {
+            bind(select, parameters);
+            try (ResultSet row = select.executeQuery()) {
+                while (row.next()) {
+                    result.add(row.getLong(1));
+                }
+            }
+        } catch (SQLException e) {
+            throw readFailure(e);
+        }
+        return result;
+    }
+
+    // Приватный метод для заполнения ID подзадач у эпиков списка одним запросом по диапазону
+    // ID эпиков
+    private void linkSubtasks(List<? extends Task> tasks) throws SQLException {
+        Map<Integer, Epic> epics = new HashMap<>();
+        int minId = Integer.MAX_VALUE;
+        int maxId = Integer.MIN_VALUE;
+        for (Task task : tasks) {
+            if (task instanceof Epic epic) {
+                epics.put(epic.getId(), epic);
+                minId = Math.min(minId, epic.getId());
+                maxId = Math.max(maxId, epic.getId());
+            }
+        }
+        if (epics.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement select = connection.prepareStatement("SELECT id, epic_id "
+                + "FROM tasks WHERE epic_id >= ? AND epic_id <= ? AND type = 'SUBTASK'")) {
+            select.setInt(1, minId);
+            select.setInt(2, maxId);
+            try (ResultSet row = select.executeQuery()) {
+                while (row.next()) {
+                    Epic epic = epics.get(row.getInt(2));
+                    if (epic != null) {
+                        epic.addSubtaskId(row.getInt(1));
+                    }
+                }
+            }
+        }
+    }
+
+    // Приватный метод для получения типа и эпика задач, записанных в базе
+    private Map<Integer, Stored> findStored(Collection<Integer> ids) throws SQLException {
+        Map<Integer, Stored> stored = new HashMap<>();
+        List<Integer> list = new ArrayList<>(ids);
+        for (int from = 0; from < list.size(); from += IN_LIMIT) {
+            List<Integer> chunk = list.subList(from, Math.min(list.size(), from + IN_LIMIT));
+            String sql = "SELECT id, type, epic_id FROM tasks WHERE id IN ("
+                    + "?, ".repeat(chunk.size() - 1) + "?)";
+            try (PreparedStatement select = connection.prepareStatement(sql)) {
+                bind(select, chunk.toArray());
+                try (ResultSet row = select.executeQuery()) {
+                    while (row.next()) {
+                        stored.put(row.getInt(1), new Stored(TaskType.valueOf(row.getString(2)),
+                                row.getInt(3)));
+                    }
+                }
+            }
+        }
+        return stored;
+    }
+
+    private static ManagerLoadException readFailure(SQLException e) {
+        return new ManagerLoadException("Не удалось прочитать задачи из базы: " + e.getMessage());
+    }
+
+    // Приватный метод для добавления строки в пакет; полный пакет сразу отправляется в базу
+    private static int addBatch(PreparedStatement statement, int batched) throws SQLException {
+        statement.addBatch();
+        if (++batched % BATCH_SIZE == 0) {
+            statement.executeBatch();
+        }
+        return batched;
+    }
+
+    private static void bind(PreparedStatement statement, Object... parameters)
+            throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+    }
+
+    // Время эпика в строке задается после записи, в refreshEpics
+    private static void bindTask(PreparedStatement insert, Task task) throws SQLException {
+        insert.setInt(1, task.getId());
+        insert.setString(2, task.getType().name());
+        insert.setString(3, task.getTitle());
+        insert.setString(4, task.getDescription());
+        insert.setString(5, task.getStatus() != null ? task.getStatus().name() : null);
+        if (task instanceof Epic) {
+            insert.setLong(6, 0);
+            insert.setNull(7, Types.BIGINT);
+            insert.setNull(8, Types.BIGINT);
+        } else {
+            bindLong(insert, 6, task.getDuration() != null ? task.getDuration().toNanos() : null);
+            TimeSlot slot = task.getStartTime() != null ? TimeSlot.of(task) : null;
+            bindLong(insert, 7, slot != null ? toNanos(slot.start()) : null);
+            bindLong(insert, 8, slot != null ? toNanos(slot.end()) : null);
+        }
+        if (task instanceof Subtask subtask) {
+            insert.setInt(9, subtask.getEpicId());
+        } else {
+            insert.setNull(9, Types.INTEGER);
+        }
+    }
+
+    private static Task readTask(ResultSet row) throws SQLException {
+        int id = row.getInt(1);
+        String title = row.getString(3);
+        String description = row.getString(4);
+        String statusName = row.getString(5);
+        Status status = statusName != null ? Status.valueOf(statusName) : null;
+        Long duration = readLong(row, 6);
+        Long start = readLong(row, 7);
+        Duration taskDuration = duration != null ? Duration.ofNanos(duration) : null;
+        LocalDateTime startTime = start != null ? toTime(start) : null;
+
+        return switch (TaskType.valueOf(row.getString(2))) {
+            case TASK -> new Task(id, title, description, status, taskDuration, startTime);
+            case SUBTASK -> new Subtask(id, title, description, status, taskDuration, startTime,
+                    row.getInt(9));
+            case EPIC -> {
+                Epic epic = new Epic(id, title, description, status);
+                Long end = readLong(row, 8);
+                epic.setDuration(taskDuration);
+                epic.setStartTime(startTime);
+                epic.setEndTime(end != null ? toTime(end) : null);
+                yield epic;
+            }
+        };
+    }
+
+    private static void bindLong(PreparedStatement statement, int index, Long value)
+            throws SQLException {
+        if (value != null) {
+            statement.setLong(index, value);
+        } else {
+            statement.setNull(index, Types.BIGINT);
+        }
+    }
+
+    private static Long readLong(ResultSet row, int index) throws SQLException {
+        long value = row.getLong(index);
+        return row.wasNull() ? null : value;
+    }
+
+    private static long toNanos(LocalDateTime time) {
+        return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), NANOS),
+                time.getNano());
+    }
+
+    private static LocalDateTime toTime(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS),
+                (int) Math.floorMod(nanos, NANOS), ZoneOffset.UTC);
+    }
+
+    @FunctionalInterface
+    private interface SqlAction<T> {
+        T run() throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface SlotVisitor {
+        // Возвращает false, чтобы остановить обход
+        boolean visit(int id, long start, long end) throws SQLException;
+    }
+
+    // Тип и эпик задачи, записанной в базе под своим ID
+    private record Stored(TaskType type, int epicId) {
+    }
+
+    // Накопленные изменения транзакции, как в InMemoryTaskManager; существование задач
+    // и подзадачи эпиков берутся из базы
+    private class Transaction implements TaskTransaction {
+
+        private final Map<Integer, Task> staged = new LinkedHashMap<>();
+
+        @Override
+        public void createTask(Task task) {
+            staged.put(task.getId(), task);
+        }
+
+        @Override
+        public void updateTask(Task task) {
+            staged.put(task.getId(), task);
+        }
+
+        @Override
+        public void deleteTask(int id) {
+            if (holds(TaskType.TASK, id)) {
+                staged.put(id, null);
+            }
+        }
+
+        @Override
+        public void createEpic(Epic epic) {
+            staged.put(epic.getId(), epic);
+        }
+
+        @Override
+        public void updateEpic(Epic epic) {
+            staged.put(epic.getId(), epic);
+        }
+
+        // Вместе с эпиком удаляются подзадачи, которые будут в нем к моменту удаления
+        @Override
+        public void deleteEpic(int id) {
+            if (!holds(TaskType.EPIC, id)) {
+                return;
+            }
+
+            if (storedType(id) == TaskType.EPIC) {
+                for (Long subtaskId : selectLongs("SELECT id FROM tasks "
+                        + "WHERE epic_id = ? AND type = 'SUBTASK'", id)) {
+                    staged.putIfAbsent(subtaskId.intValue(), null);
+                }
+            }
+            staged.replaceAll((taskId, task) ->
+                    task instanceof Subtask subtask && subtask.getEpicId() == id ? null : task);
+            staged.put(id, null);
+        }
+
+        @Override
+        public void createSubtask(Subtask subtask) {
+            staged.put(subtask.getId(), subtask);
+        }
+
+        @Override
+        public void updateSubtask(Subtask subtask) {
+            staged.put(subtask.getId(), subtask);
+        }
+
+        @Override
+        public void deleteSubtask(int id) {
+            if (holds(TaskType.SUBTASK, id)) {
+                staged.put(id, null);
+            }
+        }
+
+        // Есть ли к этому моменту транзакции задача с таким ID и типом
+        private boolean holds(TaskType type, int id) {
+            if (staged.containsKey(id)) {
+                Task task = staged.get(id);
+                return task != null && task.getType() == type;
+            }
+            return storedType(id) == type;
+        }
+
+        // Проверка эпиков подзадач и пересечений внутри транзакции; возвращает записываемые
+        // задачи со временем для проверки после записи
+        private List<Task> validate() {
+            List<Task> timed = new ArrayList<>();
+            for (Task task : staged.values()) {
+                if (task instanceof Subtask subtask) {
+                    validateEpic(subtask);
+                    timed.add(subtask);
+                } else if (task != null && task.getType() == TaskType.TASK) {
+                    timed.add(task);
+                }
+            }
+            validateBatch(timed);
+            return timed;
+        }
+
+        private void validateEpic(Subtask subtask) {
+            int epicId = subtask.getEpicId();
+            boolean exists = staged.containsKey(epicId) ? staged.get(epicId) instanceof Epic
+                    : storedType(epicId) == TaskType.EPIC;
+            if (!exists) {
+                throw new TransactionException("Эпик с ID " + epicId + " для подзадачи с ID "
+                        + subtask.getId() + " не существует");
+            }
+        }
+    }
+}
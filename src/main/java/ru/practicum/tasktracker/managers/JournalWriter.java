@@ -0,0 +1,239 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Групповая запись журнала. Изменения ставятся в очередь, а отдельный поток забирает
+// все накопившиеся группы, пишет их одной операцией и при необходимости выполняет один
+// сброс на диск на всю пачку, после чего разом освобождает всех ожидающих.
+// Каждая поставленная группа получает порядковый номер; await(номер) ждет, пока группа
+// будет записана, а при политике perWrite - и сброшена на диск.
+// rotate закрывает текущий сегмент журнала: группы, поставленные до вызова, остаются в нем,
+// а следующие пишутся уже в новый файл.
+class JournalWriter implements Closeable {
+
+    private TaskJournal journal;
+    private final FsyncPolicy policy;
+    private final Thread thread;
+
+    private List<List<String>> pending = new ArrayList<>();
+    private int records;
+    private long enqueued;
+    private long written;
+    private long durable;
+    private long lastForce = System.nanoTime();
+    private boolean forceRequested;
+    // Номер последней группы закрываемого сегмента и его новое имя; -1 - закрытие не запрошено
+    private long rotateAt = -1;
+    private File sealedFile;
+    private boolean closed;
+    private IOException failure;
+
+    JournalWriter(TaskJournal journal, FsyncPolicy policy, int records) {
+        this.journal = journal;
+        this.policy = policy;
+        this.records = records;
+        thread = new Thread(this::run, "journal-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Количество записей в текущем сегменте журнала, включая еще не записанные
+    synchronized int size() {
+        return records;
+    }
+
+    synchronized long append(List<String> group) throws IOException {
+        checkState();
+        pending.add(group);
+        records += group.size();
+        notifyAll();
+        return ++enqueued;
+    }
+
+    synchronized void await(long sequence) throws IOException {
+        boolean interrupted = false;
+        while ((policy.isPerWrite() ? durable : written) < sequence) {
+            checkFailure();
+            interrupted |= waitUninterruptibly();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Запись и сброс на диск всего, что поставлено в очередь к этому моменту
+    synchronized void sync() throws IOException {
+        long target = enqueued;
+        forceRequested = true;
+        notifyAll();
+        boolean interrupted = false;
+        while (durable < target) {
+            checkFailure();
+            interrupted |= waitUninterruptibly();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Запрос на закрытие текущего сегмента с переименованием в sealed; сегмент будет сброшен
+    // на диск, а дождаться этого можно через awaitRotation
+    synchronized void rotate(File sealed) throws IOException {
+        checkState();
+        if (rotateAt >= 0) {
+            throw new IllegalStateException("Предыдущий сегмент журнала еще не закрыт");
+        }
+        rotateAt = enqueued;
+        sealedFile = sealed;
+        records = 0;
+        notifyAll();
+    }
+
+    synchronized void awaitRotation() throws IOException {
+        boolean interrupted = false;
+        while (rotateAt >= 0) {
+            checkFailure();
+            interrupted |= waitUninterruptibly();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private void run() {
+        long taken = 0;
+        while (true) {
+            List<List<String>> batch;
+            long sequence;
+            long rotation;
+            File sealed;
+            boolean force;
+            synchronized (this) {
+                while (pending.isEmpty() && !closed && !forceDue() && rotateAt < 0) {
+                    waitForWork();
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                sequence = enqueued;
+                rotation = rotateAt;
+                sealed = sealedFile;
+                force = closed || forceRequested || policy.isPerWrite() || forceDue()
+                        || (!policy.isOs() && intervalElapsed());
+                forceRequested = false;
+            }
+
+            try {
+                if (rotation >= 0) {
+                    // Группы до запроса на закрытие идут в прежний сегмент, остальные - в новый
+                    int split = (int) (rotation - taken);
+                    if (split > 0) {
+                        journal.append(batch.subList(0, split));
+                    }
+                    journal = journal.rotate(sealed);
+                    batch = batch.subList(split, batch.size());
+                }
+                if (!batch.isEmpty()) {
+                    journal.append(batch);
+                }
+                if (force && sequence > durable) {
+                    journal.force();
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+            taken = sequence;
+
+            synchronized (this) {
+                written = sequence;
+                if (rotation >= 0) {
+                    durable = Math.max(durable, rotation);
+                    rotateAt = -1;
+                    sealedFile = null;
+                }
+                if (force) {
+                    durable = sequence;
+                    lastForce = System.nanoTime();
+                }
+                notifyAll();
+                if (closed && pending.isEmpty()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Нужен ли сброс без новых записей: по запросу sync или по истечении интервала
+    private boolean forceDue() {
+        return written > durable && (forceRequested || (!policy.isOs() && intervalElapsed()));
+    }
+
+    private boolean intervalElapsed() {
+        return System.nanoTime() - lastForce >= policy.getIntervalMillis() * 1_000_000;
+    }
+
+    private void waitForWork() {
+        long timeout = 0;
+        if (written > durable && !policy.isOs()) {
+            long elapsed = (System.nanoTime() - lastForce) / 1_000_000;
+            timeout = Math.max(1, policy.getIntervalMillis() - elapsed);
+        }
+        try {
+            wait(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Возвращает true, если ожидание было прервано
+    private boolean waitUninterruptibly() {
+        try {
+            wait();
+            return false;
+        } catch (InterruptedException e) {
+            return true;
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void checkState() throws IOException {
+        checkFailure();
+        if (closed) {
+            throw new IOException("Журнал закрыт");
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package main.java.ru.practicum.tasktracker.managers;
 
 import java.io.File;
+import main.java.ru.practicum.tasktracker.enums.PersistenceMode;
 
 public class Managers {
 
@@ -8,16 +9,41 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    // Менеджер с календарной проверкой пересечений для задач, выровненных по сетке slotMinutes
+    public static TaskManager getCalendarTaskManager(int slotMinutes) {
+        return new InMemoryTaskManager(new SlotBitmapIndex(slotMinutes));
+    }
+
+    // Менеджер для одновременной работы из нескольких потоков
+    public static TaskManager getConcurrentTaskManager() {
+        return new ConcurrentTaskManager();
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
 
     public static TaskManager getFileBackedTaskManager() {
+        return getFileBackedTaskManager(PersistenceMode.SNAPSHOT);
+    }
+
+    // Менеджер, хранящий задачи в отображаемом в память файле
+    public static TaskManager getMappedTaskManager() {
+        return new MappedTaskManager(new File("data.tks"));
+    }
+
+    // Менеджер, хранящий задачи во встраиваемой базе H2 в файле tasks.mv.db; драйвер H2
+    // должен быть в classpath
+    public static TaskManager getJdbcTaskManager() {
+        return new JdbcTaskManager("jdbc:h2:./tasks");
+    }
+
+    public static TaskManager getFileBackedTaskManager(PersistenceMode mode) {
         File file = new File("data.csv");
         if (file.exists()) {
-            return FileBackedTaskManager.loadFromFile(file);
+            return FileBackedTaskManager.loadFromFile(file, mode);
         } else {
-            return new FileBackedTaskManager(file);
+            return new FileBackedTaskManager(file, mode);
         }
     }
 }
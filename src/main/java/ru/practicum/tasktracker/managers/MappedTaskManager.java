@@ -0,0 +1,59 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.io.File;
+import java.io.IOException;
+import main.java.ru.practicum.tasktracker.enums.TaskType;
+import main.java.ru.practicum.tasktracker.exceptions.ManagerLoadException;
+import main.java.ru.practicum.tasktracker.exceptions.ManagerSaveException;
+import main.java.ru.practicum.tasktracker.tasks.Subtask;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Менеджер, хранящий задачи в отображаемом в память файле MappedTaskStore. Задачи и подзадачи
+// в куче не держатся: хранилища InMemoryTaskManager для них - представления записей файла,
+// поэтому каждое чтение декодирует запись, а изменение переписывает на месте только ее,
+// без снимков и журнала. В памяти остаются индексы из ID и состояний задач, по которым
+// работают выборки и проверка пересечений, и эпики: их статус и время выводятся из подзадач.
+// При открытии индексы заполняются по полям фиксированной длины записей, без разбора текстов;
+// статусы и время эпиков вычисляются заново. Изменения попадают в файл сразу, а на диск
+// их сбрасывает ОС; flush и close сбрасывают их принудительно. Изменение нескольких задач
+// при сбое ОС может сохраниться частично.
+public final class MappedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+
+    private final MappedTaskStore store;
+
+    public MappedTaskManager(File file) {
+        this(open(file));
+    }
+
+    private MappedTaskManager(MappedTaskStore store) {
+        super(new IntervalTree(), store.storage(TaskType.TASK, Task.class), store.epicStorage(),
+                store.storage(TaskType.SUBTASK, Subtask.class));
+        this.store = store;
+        MappedTaskStore.Contents contents = store.contents();
+        loadIndexed(contents.ids(), contents.states(), contents.epics());
+    }
+
+    private static MappedTaskStore open(File file) {
+        try {
+            return MappedTaskStore.open(file);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new ManagerLoadException(
+                    "Не удалось открыть хранилище задач: " + e.getMessage());
+        }
+    }
+
+    // Сброс изменений на диск
+    public void flush() {
+        store.force();
+    }
+
+    @Override
+    public void close() {
+        try {
+            store.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException(
+                    "Не удалось закрыть хранилище задач: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,574 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import main.java.ru.practicum.tasktracker.collections.IntIntMap;
+import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.enums.TaskType;
+import main.java.ru.practicum.tasktracker.exceptions.ManagerSaveException;
+import main.java.ru.practicum.tasktracker.tasks.Epic;
+import main.java.ru.practicum.tasktracker.tasks.Subtask;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Хранилище задач в отображаемых в память файлах (FileChannel.map). Основной файл - заголовок
+// и записи фиксированной длины RECORD_SIZE, по одной на задачу; тексты (названия и описания)
+// лежат в отдельном файле-куче <файл>.heap.<поколение> и дописываются в его конец.
+// Изменение задачи - запись ее ячейки на месте, удаление - пометка ячейки свободной для
+// повторного использования. Задачи и подзадачи читаются из записей при каждом обращении
+// через представления storage; при открытии из записей берутся только поля фиксированной
+// длины для индексов, тексты декодируются лишь у эпиков, которые держатся в памяти.
+// Кэшированием занимается страничный кэш ОС; на диск изменения сбрасывает ОС или force.
+// Неизменившийся текст при обновлении не дописывается повторно; место устаревших текстов
+// учитывается и освобождается переписыванием хранилища в новое поколение кучи.
+class MappedTaskStore implements Closeable {
+
+    static final int RECORD_SIZE = 64;
+    static final int HEADER_SIZE = 64;
+
+    private static final int MAGIC = 0x544B534D; // "TKSM"
+    private static final int VERSION = 1;
+    private static final int INITIAL_RECORDS = 1024;
+    private static final long INITIAL_HEAP = 64 * 1024;
+
+    // Смещения полей заголовка
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_RECORD_SIZE = 8;
+    private static final int H_GENERATION = 12;
+    private static final int H_SLOTS = 16;
+    private static final int H_HEAP_USED = 24;
+    private static final int H_GARBAGE = 32;
+
+    // Смещения полей записи
+    private static final int R_STATE = 0;
+    private static final int R_TYPE = 1;
+    private static final int R_STATUS = 2;
+    private static final int R_FLAGS = 3;
+    private static final int R_ID = 4;
+    private static final int R_EPIC_ID = 8;
+    private static final int R_START_NANO = 12;
+    private static final int R_DURATION = 16;
+    private static final int R_START = 24;
+    private static final int R_TITLE_OFFSET = 32;
+    private static final int R_TITLE_LENGTH = 40;
+    private static final int R_DESCRIPTION_LENGTH = 44;
+    private static final int R_DESCRIPTION_OFFSET = 48;
+
+    private static final byte USED = 1;
+    private static final int HAS_DURATION = 1;
+    private static final int HAS_START = 2;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final File file;
+    private final FileChannel records;
+    private final FileChannel heap;
+    private final File heapFile;
+    private MappedByteBuffer recordMap;
+    private MappedByteBuffer heapMap;
+    private int slots;
+    private long heapUsed;
+    private long garbage;
+
+    // Ячейки задач по ID и свободные ячейки
+    private final IntIntMap slotById = new IntIntMap();
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    private MappedTaskStore(File file) throws IOException {
+        this.file = file;
+        boolean created = !file.exists() || file.length() == 0;
+        records = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            recordMap = records.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(records.size(),
+                    HEADER_SIZE + (long) INITIAL_RECORDS * RECORD_SIZE));
+            if (created) {
+                recordMap.putInt(H_MAGIC, MAGIC);
+                recordMap.putInt(H_VERSION, VERSION);
+                recordMap.putInt(H_RECORD_SIZE, RECORD_SIZE);
+            } else if (recordMap.getInt(H_MAGIC) != MAGIC
+                    || recordMap.getInt(H_VERSION) != VERSION
+                    || recordMap.getInt(H_RECORD_SIZE) != RECORD_SIZE) {
+                throw new IllegalArgumentException("Файл не является хранилищем задач: " + file);
+            }
+
+            slots = (int) recordMap.getLong(H_SLOTS);
+            heapUsed = recordMap.getLong(H_HEAP_USED);
+            garbage = recordMap.getLong(H_GARBAGE);
+            heapFile = heapFile(file, recordMap.getInt(H_GENERATION));
+            heap = FileChannel.open(heapFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException | RuntimeException e) {
+            records.close();
+            throw e;
+        }
+        heapMap = heap.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(heap.size(), Math.max(INITIAL_HEAP, heapUsed)));
+    }
+
+    // Сохраненные задачи для заполнения индексов менеджера: ID задач и подзадач по возрастанию
+    // с состояниями из полей записей (тексты не читаются) и эпики по возрастанию ID
+    record Contents(int[] ids, IndexedState[] states, List<Epic> epics) {
+    }
+
+    // Открытие хранилища; если устаревшие тексты занимают больше половины кучи, хранилище
+    // переписывается в новое поколение
+    static MappedTaskStore open(File file) throws IOException {
+        MappedTaskStore store = new MappedTaskStore(file);
+        try {
+            store.scan();
+        } catch (RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        if (store.garbage > INITIAL_HEAP && store.garbage * 2 > store.heapUsed) {
+            return store.rewrite();
+        }
+        return store;
+    }
+
+    // Хранилище задач одного типа поверх записей: задача читается из записи при каждом get
+    <T extends Task> TaskStorage<T> storage(TaskType type, Class<T> taskClass) {
+        return new TaskStorage<>() {
+            @Override
+            public T get(int id) {
+                int slot = slotById.get(id);
+                if (slot == IntIntMap.MISSING || typeAt(offset(slot)) != type) {
+                    return null;
+                }
+                return taskClass.cast(readTask(offset(slot)));
+            }
+
+            @Override
+            public void put(T task) {
+                write(() -> MappedTaskStore.this.put(task));
+            }
+
+            @Override
+            public boolean remove(int id) {
+                int slot = slotById.get(id);
+                if (slot == IntIntMap.MISSING || typeAt(offset(slot)) != type) {
+                    return false;
+                }
+                write(() -> MappedTaskStore.this.remove(id));
+                return true;
+            }
+
+            @Override
+            public void clear() {
+                write(() -> removeAll(type));
+            }
+        };
+    }
+
+    // Хранилище эпиков: объекты держатся в памяти вместе с выведенными из подзадач статусом
+    // и временем, а записи обновляются вслед за ними
+    TaskStorage<Epic> epicStorage() {
+        TaskStorage<Epic> epics = TaskStorage.inMemory();
+        return new TaskStorage<>() {
+            @Override
+            public Epic get(int id) {
+                return epics.get(id);
+            }
+
+            @Override
+            public void put(Epic epic) {
+                write(() -> MappedTaskStore.this.put(epic));
+                epics.put(epic);
+            }
+
+            @Override
+            public boolean remove(int id) {
+                if (!epics.remove(id)) {
+                    return false;
+                }
+                write(() -> MappedTaskStore.this.remove(id));
+                return true;
+            }
+
+            @Override
+            public void clear() {
+                write(() -> removeAll(TaskType.EPIC));
+                epics.clear();
+            }
+
+            @Override
+            public void ensureCapacity(int expectedSize) {
+                epics.ensureCapacity(expectedSize);
+            }
+        };
+    }
+
+    // Содержимое хранилища для индексов менеджера. ID и ячейки упаковываются в long
+    // (ID в старших битах), поэтому сортировка по ID обходится без объектов
+    Contents contents() {
+        long[] tasks = new long[slotById.size()];
+        long[] epics = new long[slotById.size()];
+        int taskCount = 0;
+        int epicCount = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            int position = offset(slot);
+            if (recordMap.get(position + R_STATE) != USED) {
+                continue;
+            }
+            long key = (long) recordMap.getInt(position + R_ID) << 32 | slot;
+            if (typeAt(position) == TaskType.EPIC) {
+                epics[epicCount++] = key;
+            } else {
+                tasks[taskCount++] = key;
+            }
+        }
+        Arrays.parallelSort(tasks, 0, taskCount);
+        Arrays.parallelSort(epics, 0, epicCount);
+
+        int[] ids = new int[taskCount];
+        IndexedState[] states = new IndexedState[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            ids[i] = (int) (tasks[i] >> 32);
+            states[i] = readState(offset((int) tasks[i]));
+        }
+        List<Epic> loadedEpics = new ArrayList<>(epicCount);
+        for (int i = 0; i < epicCount; i++) {
+            loadedEpics.add((Epic) readTask(offset((int) epics[i])));
+        }
+        return new Contents(ids, states, loadedEpics);
+    }
+
+    // Запись задачи в ее ячейку или в свободную ячейку, если задача новая
+    void put(Task task) {
+        int slot = slotById.get(task.getId());
+        int position;
+        if (slot != IntIntMap.MISSING) {
+            position = offset(slot);
+        } else {
+            int newSlot = freeCount > 0 ? freeSlots[--freeCount] : allocateSlot();
+            slotById.put(task.getId(), newSlot);
+            position = offset(newSlot);
+            recordMap.putInt(position + R_TITLE_LENGTH, -1);
+            recordMap.putInt(position + R_DESCRIPTION_LENGTH, -1);
+        }
+
+        // Тексты пишутся до полей записи, чтобы запись не ссылалась на недописанный текст
+        writeText(position + R_TITLE_OFFSET, position + R_TITLE_LENGTH, task.getTitle());
+        writeText(position + R_DESCRIPTION_OFFSET, position + R_DESCRIPTION_LENGTH,
+                task.getDescription());
+
+        Duration duration = task.getType() == TaskType.EPIC ? null : task.getDuration();
+        LocalDateTime start = task.getType() == TaskType.EPIC ? null : task.getStartTime();
+        int flags = (duration != null ? HAS_DURATION : 0) | (start != null ? HAS_START : 0);
+        recordMap.put(position + R_TYPE, (byte) task.getType().ordinal());
+        recordMap.put(position + R_STATUS, (byte) task.getStatus().ordinal());
+        recordMap.put(position + R_FLAGS, (byte) flags);
+        recordMap.putInt(position + R_ID, task.getId());
+        recordMap.putInt(position + R_EPIC_ID,
+                task instanceof Subtask subtask ? subtask.getEpicId() : 0);
+        recordMap.putLong(position + R_DURATION, duration != null ? duration.getSeconds() : 0);
+        recordMap.putLong(position + R_START,
+                start != null ? start.toEpochSecond(ZoneOffset.UTC) : 0);
+        recordMap.putInt(position + R_START_NANO, start != null ? start.getNano() : 0);
+        recordMap.put(position + R_STATE, USED);
+        recordMap.putLong(H_GARBAGE, garbage);
+    }
+
+    // Освобождение ячейки задачи; возвращает false, если задачи в хранилище нет
+    boolean remove(int id) {
+        int slot = slotById.remove(id);
+        if (slot == IntIntMap.MISSING) {
+            return false;
+        }
+
+        int position = offset(slot);
+        recordMap.put(position + R_STATE, (byte) 0);
+        garbage += Math.max(0, recordMap.getInt(position + R_TITLE_LENGTH))
+                + Math.max(0, recordMap.getInt(position + R_DESCRIPTION_LENGTH));
+        recordMap.putLong(H_GARBAGE, garbage);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        return true;
+    }
+
+    // Сброс отображенных страниц на диск
+    void force() {
+        heapMap.force();
+        recordMap.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (heapMap != null) {
+                force();
+            }
+        } finally {
+            try {
+                records.close();
+            } finally {
+                if (heap != null) {
+                    heap.close();
+                }
+            }
+        }
+    }
+
+    // Учет занятых и свободных ячеек по полям записей, без чтения текстов; ссылки записей
+    // на кучу проверяются здесь, чтобы при чтении задач они уже были заведомо верными
+    private void scan() {
+        for (int slot = 0; slot < slots; slot++) {
+            int position = offset(slot);
+            if (recordMap.get(position + R_STATE) != USED) {
+                if (freeCount == freeSlots.length) {
+                    freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+                }
+                freeSlots[freeCount++] = slot;
+                continue;
+            }
+
+            checkText(position + R_TITLE_OFFSET, position + R_TITLE_LENGTH);
+            checkText(position + R_DESCRIPTION_OFFSET, position + R_DESCRIPTION_LENGTH);
+            slotById.put(recordMap.getInt(position + R_ID), slot);
+        }
+    }
+
+    private void checkText(int offsetField, int lengthField) {
+        int length = recordMap.getInt(lengthField);
+        if (length >= 0 && recordMap.getLong(offsetField) + length > heapUsed) {
+            throw new IllegalArgumentException("Запись ссылается за пределы кучи текстов");
+        }
+    }
+
+    // Удаление всех задач одного типа
+    private void removeAll(TaskType type) {
+        for (int slot = 0; slot < slots; slot++) {
+            int position = offset(slot);
+            if (recordMap.get(position + R_STATE) == USED && typeAt(position) == type) {
+                remove(recordMap.getInt(position + R_ID));
+            }
+        }
+    }
+
+    // Запись в хранилище; ошибки отображения файла передаются менеджеру как ошибки сохранения
+    private static void write(Runnable action) {
+        try {
+            action.run();
+        } catch (UncheckedIOException | IllegalStateException e) {
+            throw new ManagerSaveException(
+                    "Не удалось записать задачи в хранилище: " + e.getMessage());
+        }
+    }
+
+    private TaskType typeAt(int position) {
+        return TYPES[recordMap.get(position + R_TYPE)];
+    }
+
+    // Состояние задачи для индексов по полям фиксированной длины записи
+    private IndexedState readState(int position) {
+        TaskType type = typeAt(position);
+        Status status = STATUSES[recordMap.get(position + R_STATUS)];
+        LocalDateTime start = readStart(position);
+        TimeSlot slot = null;
+        if (start != null) {
+            Duration duration = readDuration(position);
+            slot = new TimeSlot(start, duration != null ? start.plus(duration) : start,
+                    recordMap.getInt(position + R_ID));
+        }
+        return new IndexedState(type, status, recordMap.getInt(position + R_EPIC_ID), slot);
+    }
+
+    private Duration readDuration(int position) {
+        return (recordMap.get(position + R_FLAGS) & HAS_DURATION) != 0
+                ? Duration.ofSeconds(recordMap.getLong(position + R_DURATION)) : null;
+    }
+
+    private LocalDateTime readStart(int position) {
+        return (recordMap.get(position + R_FLAGS) & HAS_START) != 0
+                ? LocalDateTime.ofEpochSecond(recordMap.getLong(position + R_START),
+                recordMap.getInt(position + R_START_NANO), ZoneOffset.UTC) : null;
+    }
+
+    private Task readTask(int position) {
+        TaskType type = typeAt(position);
+        Status status = STATUSES[recordMap.get(position + R_STATUS)];
+        int id = recordMap.getInt(position + R_ID);
+        String title = readText(position + R_TITLE_OFFSET, position + R_TITLE_LENGTH);
+        String description = readText(position + R_DESCRIPTION_OFFSET,
+                position + R_DESCRIPTION_LENGTH);
+        Duration duration = readDuration(position);
+        LocalDateTime start = readStart(position);
+
+        return switch (type) {
+            case TASK -> new Task(id, title, description, status, duration, start);
+            case EPIC -> new Epic(id, title, description, status);
+            case SUBTASK -> new Subtask(id, title, description, status, duration, start,
+                    recordMap.getInt(position + R_EPIC_ID));
+        };
+    }
+
+    private String readText(int offsetField, int lengthField) {
+        byte[] bytes = readBytes(offsetField, lengthField);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    // Байты текста записи; null, если текста нет
+    private byte[] readBytes(int offsetField, int lengthField) {
+        int length = recordMap.getInt(lengthField);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        heapMap.get((int) recordMap.getLong(offsetField), bytes);
+        return bytes;
+    }
+
+    // Текст дописывается в кучу, только если он отличается от сохраненного в записи
+    private void writeText(int offsetField, int lengthField, String text) {
+        int oldLength = recordMap.getInt(lengthField);
+        if (text == null) {
+            if (oldLength >= 0) {
+                garbage += oldLength;
+                recordMap.putInt(lengthField, -1);
+            }
+            return;
+        }
+
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (oldLength == bytes.length
+                && sameBytes(recordMap.getLong(offsetField), bytes, bytes.length)) {
+            return;
+        }
+
+        long offset = append(bytes);
+        if (oldLength >= 0) {
+            garbage += oldLength;
+        }
+        recordMap.putLong(offsetField, offset);
+        recordMap.putInt(lengthField, bytes.length);
+    }
+
+    // Дописывание текста в конец кучи; возвращает его смещение
+    private long append(byte[] bytes) {
+        long offset = heapUsed;
+        ensureHeap(offset + bytes.length);
+        heapMap.put((int) offset, bytes);
+        heapUsed += bytes.length;
+        recordMap.putLong(H_HEAP_USED, heapUsed);
+        return offset;
+    }
+
+    private boolean sameBytes(long offset, byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            if (heapMap.get((int) offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int allocateSlot() {
+        int slot = slots;
+        long needed = offset(slot) + (long) RECORD_SIZE;
+        if (needed > recordMap.capacity()) {
+            recordMap = remap(records, recordMap.capacity(), needed);
+        }
+        slots++;
+        recordMap.putLong(H_SLOTS, slots);
+        return slot;
+    }
+
+    private void ensureHeap(long needed) {
+        if (needed > heapMap.capacity()) {
+            heapMap = remap(heap, heapMap.capacity(), needed);
+        }
+    }
+
+    // Отображение файла заново с удвоенным размером; отображение ограничено 2 ГБ
+    private static MappedByteBuffer remap(FileChannel channel, long capacity, long needed) {
+        long newCapacity = Math.max(needed, capacity * 2);
+        if (newCapacity > Integer.MAX_VALUE) {
+            newCapacity = Integer.MAX_VALUE;
+            if (needed > newCapacity) {
+                throw new IllegalStateException("Хранилище задач превысило 2 ГБ");
+            }
+        }
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, newCapacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    // Перенос записей в новое хранилище без устаревших текстов: записи копируются по ячейкам
+    // вместе со своими текстами, без разбора в объекты. Новые файлы записываются рядом
+    // и целиком, а затем основной файл атомарно заменяется: до замены действует старое
+    // хранилище, после - новое, поэтому сбой посередине ничего не теряет
+    private MappedTaskStore rewrite() throws IOException {
+        int generation = recordMap.getInt(H_GENERATION) + 1;
+        File temp = new File(file.getPath() + ".tmp");
+        Files.deleteIfExists(temp.toPath());
+        File newHeap = heapFile(temp, 0);
+        Files.deleteIfExists(newHeap.toPath());
+        try (MappedTaskStore copy = new MappedTaskStore(temp)) {
+            for (int slot = 0; slot < slots; slot++) {
+                if (recordMap.get(offset(slot) + R_STATE) == USED) {
+                    copy.copyRecord(this, offset(slot));
+                }
+            }
+            copy.recordMap.putInt(H_GENERATION, generation);
+        }
+        close();
+
+        Files.move(newHeap.toPath(), heapFile(file, generation).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(heapFile.toPath());
+
+        MappedTaskStore store = new MappedTaskStore(file);
+        store.scan();
+        return store;
+    }
+
+    // Копирование записи другого хранилища в новую ячейку с переносом ее текстов в эту кучу
+    private void copyRecord(MappedTaskStore source, int sourcePosition) {
+        int slot = allocateSlot();
+        int position = offset(slot);
+        for (int i = 0; i < RECORD_SIZE; i += Long.BYTES) {
+            recordMap.putLong(position + i, source.recordMap.getLong(sourcePosition + i));
+        }
+        byte[] title = source.readBytes(sourcePosition + R_TITLE_OFFSET,
+                sourcePosition + R_TITLE_LENGTH);
+        if (title != null) {
+            recordMap.putLong(position + R_TITLE_OFFSET, append(title));
+        }
+        byte[] description = source.readBytes(sourcePosition + R_DESCRIPTION_OFFSET,
+                sourcePosition + R_DESCRIPTION_LENGTH);
+        if (description != null) {
+            recordMap.putLong(position + R_DESCRIPTION_OFFSET, append(description));
+        }
+        slotById.put(recordMap.getInt(position + R_ID), slot);
+    }
+
+    private static File heapFile(File file, int generation) {
+        return new File(file.getPath() + ".heap." + generation);
+    }
+}
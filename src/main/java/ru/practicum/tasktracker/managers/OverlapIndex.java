@@ -0,0 +1,24 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Индекс занятости по времени, через который InMemoryTaskManager проверяет пересечения задач
+interface OverlapIndex {
+
+    void add(TimeSlot slot);
+
+    void remove(TimeSlot slot);
+
+    void clear();
+
+    // Добавление интервалов, отсортированных по возрастанию; для загрузки большого числа задач
+    default void addAll(List<TimeSlot> sorted) {
+        for (TimeSlot slot : sorted) {
+            add(slot);
+        }
+    }
+
+    // Проверка пересечения интервала [start, end) с любым интервалом, кроме интервала задачи excludeId
+    boolean overlaps(LocalDateTime start, LocalDateTime end, int excludeId);
+}
@@ -0,0 +1,185 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Параллельное чтение файла снимка. Файл читается в память целиком и делится на части,
+// которые разбираются в пуле ForkJoinPool; задачи частей собираются в порядке частей.
+// Двоичный снимок делится по блокам BinarySnapshot, которые независимы друг от друга.
+// CSV делится по строкам: границы частей выбираются на переводах строк вне кавычек. Кавычки
+// внутри поля удваиваются, поэтому поле открыто, только если до позиции в файле нечетное
+// число кавычек; кавычки и строки подсчитываются в частях параллельно.
+// Связи между задачами (подзадачи и эпики) восстанавливает уже InMemoryTaskManager.load.
+// Сжатый CompressedSnapshot сначала распаковывается, тоже по блокам параллельно.
+public final class ParallelSnapshotReader {
+
+    // Файлы меньше этого размера быстрее разобрать в одном потоке
+    public static final int PARALLEL_THRESHOLD = 4 << 20;
+
+    // Частей больше, чем потоков, чтобы потоки не простаивали из-за неравных частей
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelSnapshotReader() {
+    }
+
+    // Задачи снимка в порядке файла; формат определяется по сигнатуре, сжатый снимок
+    // распаковывается в том же пуле
+    public static List<Task> read(File file, ForkJoinPool pool) throws IOException {
+        byte[] content = Files.readAllBytes(file.toPath());
+        if (CompressedSnapshot.isCompressed(content)) {
+            content = CompressedSnapshot.decompress(content, pool);
+        }
+        return read(content, pool);
+    }
+
+    static List<Task> read(byte[] content, ForkJoinPool pool) {
+        return BinarySnapshot.isBinary(content) ? readBinary(content, pool)
+                : readCsv(content, pool);
+    }
+
+    private static List<Task> readBinary(byte[] content, ForkJoinPool pool) {
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        BinarySnapshot.readHeader(buffer);
+
+        // Заголовки блоков читаются подряд, данные блоков разбираются параллельно
+        List<ForkJoinTask<List<Task>>> blocks = new ArrayList<>();
+        while (true) {
+            if (buffer.remaining() < BinarySnapshot.BLOCK_HEADER_SIZE) {
+                throw new IllegalArgumentException("Снимок обрывается до конца файла");
+            }
+            int length = buffer.getInt();
+            int count = buffer.getInt();
+            int crc = buffer.getInt();
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalArgumentException("Снимок обрывается до конца файла");
+            }
+
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            blocks.add(pool.submit(() -> {
+                List<Task> tasks = new ArrayList<>(count);
+                BinarySnapshot.decodeBlock(payload, count, crc, tasks);
+                return tasks;
+            }));
+        }
+        return join(blocks);
+    }
+
+    private static List<Task> readCsv(byte[] content, ForkJoinPool pool) {
+        int chunkCount = Math.max(1, pool.getParallelism() * CHUNKS_PER_THREAD);
+        int chunkSize = Math.max(1, (content.length + chunkCount - 1) / chunkCount);
+
+        // Число кавычек и переводов строк в каждой части равного размера
+        List<ForkJoinTask<long[]>> counts = new ArrayList<>();
+        for (int from = 0; from < content.length; from += chunkSize) {
+            int start = from;
+            int end = Math.min(content.length, from + chunkSize);
+            counts.add(pool.submit(() -> count(content, start, end)));
+        }
+
+        // Граница части сдвигается вперед до первого перевода строки вне кавычек
+        List<ForkJoinTask<List<Task>>> chunks = new ArrayList<>();
+        int chunkStart = 0;
+        long quotes = 0;
+        long lines = 0;
+        long chunkLine = 0;
+        for (int i = 0; i < counts.size(); i++) {
+            long[] count = counts.get(i).join();
+            quotes += count[0];
+            lines += count[1];
+            int end = (int) Math.min(content.length, (long) (i + 1) * chunkSize);
+            if (end <= chunkStart) {
+                continue;
+            }
+
+            // Сдвинутая граница может зайти и в следующие части: их счетчики это не меняет
+            int boundary = end;
+            long boundaryLine = lines;
+            boolean quoted = (quotes & 1) != 0;
+            while (boundary < content.length && (quoted || content[boundary - 1] != '\n')) {
+                byte b = content[boundary++];
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n') {
+                    boundaryLine++;
+                }
+            }
+
+            int start = chunkStart;
+            int stop = boundary;
+            long firstLine = chunkLine;
+            boolean header = start == 0;
+            chunks.add(pool.submit(() -> parseCsv(content, start, stop, firstLine, header)));
+            chunkStart = boundary;
+            chunkLine = boundaryLine;
+            if (chunkStart >= content.length) {
+                break;
+            }
+        }
+        return join(chunks);
+    }
+
+    private static List<Task> parseCsv(byte[] content, int from, int to, long firstLine,
+            boolean header) {
+        List<Task> tasks = new ArrayList<>();
+        try (TaskCsvReader reader = TaskCsvReader.forChunk(new InputStreamReader(
+                new ByteArrayInputStream(content, from, to - from), StandardCharsets.UTF_8),
+                firstLine)) {
+            if (header) {
+                reader.skip();
+            }
+            Task task;
+            while ((task = reader.next()) != null) {
+                tasks.add(task);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tasks;
+    }
+
+    // Число кавычек и переводов строк в [from, to)
+    private static long[] count(byte[] content, int from, int to) {
+        long quotes = 0;
+        long lines = 0;
+        for (int i = from; i < to; i++) {
+            byte b = content[i];
+            if (b == '"') {
+                quotes++;
+            } else if (b == '\n') {
+                lines++;
+            }
+        }
+        return new long[] {quotes, lines};
+    }
+
+    private static List<Task> join(List<ForkJoinTask<List<Task>>> parts) {
+        List<List<Task>> results = new ArrayList<>(parts.size());
+        int size = 0;
+        for (ForkJoinTask<List<Task>> part : parts) {
+            List<Task> tasks = part.join();
+            results.add(tasks);
+            size += tasks.size();
+        }
+
+        List<Task> tasks = new ArrayList<>(size);
+        for (List<Task> part : results) {
+            tasks.addAll(part);
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,256 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Неизменяемое сбалансированное (AVL) дерево поиска. Изменение возвращает новую версию,
+// которая копирует только путь от корня до измененного узла (O(log n)), а остальные узлы
+// разделяет с предыдущей версией. Старые версии остаются доступными и не меняются.
+final class PersistentTreeMap<K, V> {
+
+    private final Comparator<? super K> comparator;
+    private final TreeNode<K, V> root;
+
+    private PersistentTreeMap(Comparator<? super K> comparator, TreeNode<K, V> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    static <K, V> PersistentTreeMap<K, V> empty(Comparator<? super K> comparator) {
+        return new PersistentTreeMap<>(comparator, null);
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    V get(K key) {
+        TreeNode<K, V> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(key, node.key);
+            if (cmp == 0) {
+                return node.value;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    PersistentTreeMap<K, V> put(K key, V value) {
+        return new PersistentTreeMap<>(comparator, insert(root, key, value));
+    }
+
+    PersistentTreeMap<K, V> remove(K key) {
+        TreeNode<K, V> newRoot = delete(root, key);
+        return newRoot == root ? this : new PersistentTreeMap<>(comparator, newRoot);
+    }
+
+    PersistentTreeMap<K, V> clear() {
+        return root == null ? this : empty(comparator);
+    }
+
+    // Неизменяемое представление значений в порядке возрастания ключей, без копирования
+    List<V> values() {
+        return new ValuesView<>(root);
+    }
+
+    // Не более limit значений с ключами больше after (null - с наименьшего ключа), O(log n + limit)
+    List<V> valuesAfter(K after, int limit) {
+        List<V> result = new ArrayList<>(Math.min(limit, size()));
+        Deque<TreeNode<K, V>> path = new ArrayDeque<>();
+        TreeNode<K, V> node = root;
+        while (node != null) {
+            if (after == null || comparator.compare(node.key, after) > 0) {
+                path.push(node);
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+
+        while (!path.isEmpty() && result.size() < limit) {
+            node = path.pop();
+            result.add(node.value);
+            for (node = node.right; node != null; node = node.left) {
+                path.push(node);
+            }
+        }
+        return result;
+    }
+
+    private TreeNode<K, V> insert(TreeNode<K, V> node, K key, V value) {
+        if (node == null) {
+            return new TreeNode<>(key, value, null, null);
+        }
+
+        int cmp = comparator.compare(key, node.key);
+        if (cmp < 0) {
+            return balance(node.key, node.value, insert(node.left, key, value), node.right);
+        } else if (cmp > 0) {
+            return balance(node.key, node.value, node.left, insert(node.right, key, value));
+        }
+        return new TreeNode<>(key, value, node.left, node.right);
+    }
+
+    private TreeNode<K, V> delete(TreeNode<K, V> node, K key) {
+        if (node == null) {
+            return null;
+        }
+
+        int cmp = comparator.compare(key, node.key);
+        if (cmp < 0) {
+            TreeNode<K, V> left = delete(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        } else if (cmp > 0) {
+            TreeNode<K, V> right = delete(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        TreeNode<K, V> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left,
+                delete(node.right, successor.key));
+    }
+
+    private static <K, V> TreeNode<K, V> balance(K key, V value, TreeNode<K, V> left,
+            TreeNode<K, V> right) {
+        int factor = height(left) - height(right);
+        if (factor > 1) {
+            if (height(left.left) < height(left.right)) {
+                left = rotateLeft(left);
+            }
+            return rotateRight(key, value, left, right);
+        }
+        if (factor < -1) {
+            if (height(right.right) < height(right.left)) {
+                right = rotateRight(right.key, right.value, right.left, right.right);
+            }
+            return rotateLeft(key, value, left, right);
+        }
+        return new TreeNode<>(key, value, left, right);
+    }
+
+    private static <K, V> TreeNode<K, V> rotateLeft(TreeNode<K, V> node) {
+        return rotateLeft(node.key, node.value, node.left, node.right);
+    }
+
+    private static <K, V> TreeNode<K, V> rotateLeft(K key, V value, TreeNode<K, V> left,
+            TreeNode<K, V> right) {
+        return new TreeNode<>(right.key, right.value, new TreeNode<>(key, value, left, right.left),
+                right.right);
+    }
+
+    private static <K, V> TreeNode<K, V> rotateRight(K key, V value, TreeNode<K, V> left,
+            TreeNode<K, V> right) {
+        return new TreeNode<>(left.key, left.value, left.left,
+                new TreeNode<>(key, value, left.right, right));
+    }
+
+    private static int height(TreeNode<?, ?> node) {
+        return node != null ? node.height : 0;
+    }
+
+    private static int size(TreeNode<?, ?> node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static final class TreeNode<K, V> {
+
+        final K key;
+        final V value;
+        final TreeNode<K, V> left;
+        final TreeNode<K, V> right;
+        final int height;
+        final int size;
+
+        TreeNode(K key, V value, TreeNode<K, V> left, TreeNode<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private static final class ValuesView<K, V> extends AbstractList<V> {
+
+        private final TreeNode<K, V> root;
+
+        ValuesView(TreeNode<K, V> root) {
+            this.root = root;
+        }
+
+        @Override
+        public int size() {
+            return PersistentTreeMap.size(root);
+        }
+
+        @Override
+        public V get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+
+            TreeNode<K, V> node = root;
+            while (true) {
+                int leftSize = PersistentTreeMap.size(node.left);
+                if (index < leftSize) {
+                    node = node.left;
+                } else if (index > leftSize) {
+                    index -= leftSize + 1;
+                    node = node.right;
+                } else {
+                    return node.value;
+                }
+            }
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<>() {
+                private final Deque<TreeNode<K, V>> path = new ArrayDeque<>();
+
+                {
+                    pushLeft(root);
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return !path.isEmpty();
+                }
+
+                @Override
+                public V next() {
+                    if (path.isEmpty()) {
+                        throw new NoSuchElementException();
+                    }
+                    TreeNode<K, V> node = path.pop();
+                    pushLeft(node.right);
+                    return node.value;
+                }
+
+                private void pushLeft(TreeNode<K, V> node) {
+                    while (node != null) {
+                        path.push(node);
+                        node = node.left;
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import main.java.ru.practicum.tasktracker.collections.IntMap;
+
+// Календарный индекс занятости: сутки делятся на слоты фиксированной длины, и для каждого
+// дня, в котором есть хотя бы одна задача, хранится битовая карта занятых слотов.
+// Проверка пересечения и обновление занятости сводятся к операциям над словами long.
+// Задачи должны быть выровнены по сетке слотов; задачи нулевой длительности слотов не занимают.
+class SlotBitmapIndex implements OverlapIndex {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int slotMinutes;
+    private final int slotsPerDay;
+    private final Map<Long, long[]> days = new HashMap<>();
+    private final IntMap<TimeSlot> slots = new IntMap<>();
+
+    SlotBitmapIndex(int slotMinutes) {
+        if (slotMinutes <= 0 || MINUTES_PER_DAY % slotMinutes != 0) {
+            throw new IllegalArgumentException(
+                    "Длительность слота должна делить сутки нацело: " + slotMinutes);
+        }
+        this.slotMinutes = slotMinutes;
+        this.slotsPerDay = MINUTES_PER_DAY / slotMinutes;
+    }
+
+    @Override
+    public void add(TimeSlot slot) {
+        if (!slot.start().isBefore(slot.end())) {
+            return;
+        }
+        slots.put(slot.id(), slot);
+        update(slotOf(slot.start()), slotOf(slot.end()), true);
+    }
+
+    @Override
+    public void remove(TimeSlot slot) {
+        if (slots.remove(slot.id()) != null) {
+            update(slotOf(slot.start()), slotOf(slot.end()), false);
+        }
+    }
+
+    @Override
+    public void clear() {
+        days.clear();
+        slots.clear();
+    }
+
+    @Override
+    public boolean overlaps(LocalDateTime start, LocalDateTime end, int excludeId) {
+        if (!start.isBefore(end)) {
+            return false;
+        }
+
+        long from = slotOf(start);
+        long to = slotOf(end);
+
+        TimeSlot own = slots.get(excludeId);
+        if (own == null) {
+            return anySet(from, to);
+        }
+
+        // Слоты, занятые самой задачей, при проверке не учитываются
+        long ownFrom = slotOf(own.start());
+        long ownTo = slotOf(own.end());
+        return anySet(from, Math.min(to, ownFrom)) || anySet(Math.max(from, ownTo), to);
+    }
+
+    private long slotOf(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        if (time.getNano() != 0 || seconds % (slotMinutes * 60L) != 0) {
+            throw new IllegalArgumentException(
+                    "Время " + time + " не выровнено по сетке из " + slotMinutes + " минут");
+        }
+        return seconds / (slotMinutes * 60L);
+    }
+
+    private boolean anySet(long from, long to) {
+        while (from < to) {
+            long day = Math.floorDiv(from, slotsPerDay);
+            int lo = Math.floorMod(from, slotsPerDay);
+            int hi = (int) Math.min(slotsPerDay, to - day * slotsPerDay);
+            long[] words = days.get(day);
+            if (words != null && anySet(words, lo, hi)) {
+                return true;
+            }
+            from = (day + 1) * slotsPerDay;
+        }
+        return false;
+    }
+
+    private void update(long from, long to, boolean occupied) {
+        while (from < to) {
+            long day = Math.floorDiv(from, slotsPerDay);
+            int lo = Math.floorMod(from, slotsPerDay);
+            int hi = (int) Math.min(slotsPerDay, to - day * slotsPerDay);
+            if (occupied) {
+                long[] words = days.computeIfAbsent(day,
+                        key -> new long[(slotsPerDay + 63) >>> 6]);
+                set(words, lo, hi);
+            } else {
+                long[] words = days.get(day);
+                if (words != null && clear(words, lo, hi)) {
+                    days.remove(day);
+                }
+            }
+            from = (day + 1) * slotsPerDay;
+        }
+    }
+
+    private static boolean anySet(long[] words, int lo, int hi) {
+        for (int w = lo >>> 6; w <= (hi - 1) >>> 6; w++) {
+            if ((words[w] & mask(w, lo, hi)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void set(long[] words, int lo, int hi) {
+        for (int w = lo >>> 6; w <= (hi - 1) >>> 6; w++) {
+            words[w] |= mask(w, lo, hi);
+        }
+    }
+
+    // Возвращает true, если после очистки в дне не осталось занятых слотов
+    private static boolean clear(long[] words, int lo, int hi) {
+        for (int w = lo >>> 6; w <= (hi - 1) >>> 6; w++) {
+            words[w] &= ~mask(w, lo, hi);
+        }
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Маска битов слова w, попадающих в диапазон слотов [lo, hi)
+    private static long mask(int w, int lo, int hi) {
+        long mask = -1L;
+        if (w == lo >>> 6) {
+            mask &= -1L << (lo & 63);
+        }
+        if (w == (hi - 1) >>> 6) {
+            mask &= -1L >>> (63 - ((hi - 1) & 63));
+        }
+        return mask;
+    }
+}
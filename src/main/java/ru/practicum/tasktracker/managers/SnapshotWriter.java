@@ -0,0 +1,155 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import main.java.ru.practicum.tasktracker.exceptions.ManagerSaveException;
+
+// Отложенная запись снимка (write-behind). Изменение только сообщает новую версию состояния,
+// а отдельный поток не чаще раза в intervalMillis снимает копию состояния и
+// пишет ее одним снимком, сколько бы изменений ни накопилось. При закрытии записывается
+// последняя версия. await(версия) ждет, пока версия не ниже заданной окажется в файле.
+class SnapshotWriter implements Closeable {
+
+    // Содержимое снимка и версия состояния, которой оно соответствует
+    record Snapshot(long version, ByteBuffer content) {
+    }
+
+    private final long intervalMillis;
+    private final Supplier<Snapshot> source;
+    private final Consumer<ByteBuffer> sink;
+    private final Thread thread;
+
+    private long latest;
+    private long persisted;
+    private long lastSave;
+    private boolean closed;
+    private RuntimeException failure;
+
+    // source вызывается из потока записи и должен сам обеспечить согласованность копии
+    SnapshotWriter(long intervalMillis, long version, Supplier<Snapshot> source,
+            Consumer<ByteBuffer> sink) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException(
+                    "Интервал записи должен быть положительным: " + intervalMillis);
+        }
+        this.intervalMillis = intervalMillis;
+        this.source = source;
+        this.sink = sink;
+        latest = version;
+        persisted = version;
+        lastSave = System.nanoTime() - intervalMillis * 1_000_000;
+        thread = new Thread(this::run, "snapshot-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    synchronized void markDirty(long version) {
+        if (closed) {
+            throw new ManagerSaveException("Запись снимков остановлена");
+        }
+        latest = Math.max(latest, version);
+        notifyAll();
+    }
+
+    synchronized long getPersisted() {
+        return persisted;
+    }
+
+    synchronized void await(long version) throws ManagerSaveException {
+        boolean interrupted = false;
+        while (persisted < version) {
+            if (failure != null) {
+                throw failure;
+            }
+            if (!thread.isAlive()) {
+                throw new ManagerSaveException("Запись снимков остановлена");
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Запись последней версии и остановка потока
+    @Override
+    public void close() throws ManagerSaveException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (persisted < latest && failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private void run() {
+        while (true) {
+            synchronized (this) {
+                while (!closed && (latest <= persisted || !intervalElapsed())) {
+                    waitForWork();
+                }
+                if (latest <= persisted) {
+                    return;
+                }
+            }
+
+            RuntimeException error = null;
+            Snapshot snapshot = null;
+            try {
+                snapshot = source.get();
+                sink.accept(snapshot.content());
+            } catch (RuntimeException e) {
+                error = e;
+            }
+
+            synchronized (this) {
+                lastSave = System.nanoTime();
+                if (error == null) {
+                    persisted = Math.max(persisted, snapshot.version());
+                    failure = null;
+                } else {
+                    failure = error;
+                }
+                notifyAll();
+                // При закрытии неудавшаяся запись не повторяется, ошибку получит close
+                if (closed && error != null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean intervalElapsed() {
+        return System.nanoTime() - lastSave >= intervalMillis * 1_000_000;
+    }
+
+    private void waitForWork() {
+        long timeout = 0;
+        if (latest > persisted) {
+            long elapsed = (System.nanoTime() - lastSave) / 1_000_000;
+            timeout = Math.max(1, intervalMillis - elapsed);
+        }
+        try {
+            wait(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
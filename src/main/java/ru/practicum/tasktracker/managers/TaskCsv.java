@@ -0,0 +1,128 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import main.java.ru.practicum.tasktracker.tasks.Subtask;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Строка CSV для задачи: id,type,name,status,description,duration,startTime,epic.
+// Поля с запятой, кавычкой или переводом строки заключаются в кавычки, кавычки внутри
+// удваиваются (RFC 4180); остальные поля пишутся как есть, поэтому файлы без таких символов
+// не отличаются от прежнего формата. Строка собирается в StringBuilder без String.format.
+public final class TaskCsv {
+
+    public static final String HEADER = "id,type,name,status,description,duration,startTime,epic";
+
+    private TaskCsv() {
+    }
+
+    public static String format(Task task) {
+        StringBuilder builder = new StringBuilder(64);
+        append(builder, task);
+        return builder.toString();
+    }
+
+    public static void append(StringBuilder builder, Task task) {
+        builder.append(task.getId()).append(',').append(task.getType()).append(',');
+        appendText(builder, task.getTitle());
+        builder.append(',').append(task.getStatus()).append(',');
+        appendText(builder, task.getDescription());
+        builder.append(',');
+        Duration duration = task.getDuration();
+        LocalDateTime startTime = task.getStartTime();
+        if (duration != null) {
+            builder.append(duration.toMinutes());
+        } else {
+            builder.append("null");
+        }
+        builder.append(',');
+        if (startTime != null) {
+            appendDateTime(builder, startTime);
+        } else {
+            builder.append("null");
+        }
+        builder.append(',');
+        if (task instanceof Subtask subtask) {
+            builder.append(subtask.getEpicId());
+        }
+    }
+
+    // Разбор одной строки CSV, например записи журнала
+    public static Task parse(String row) {
+        try (TaskCsvReader reader = new TaskCsvReader(new StringReader(row), row.length() + 1)) {
+            Task task = reader.next();
+            if (task == null) {
+                throw new IllegalArgumentException("Пустая строка CSV");
+            }
+            return task;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void appendText(StringBuilder builder, String text) {
+        if (text == null) {
+            builder.append("null");
+            return;
+        }
+        if (!needsQuotes(text)) {
+            builder.append(text);
+            return;
+        }
+
+        builder.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                builder.append('"');
+            }
+            builder.append(c);
+        }
+        builder.append('"');
+    }
+
+    private static boolean needsQuotes(String text) {
+        if (text.isEmpty() || "null".equals(text)) {
+            return false;
+        }
+        if (text.charAt(0) == '"') {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Формат ISO_LOCAL_DATE_TIME; дробная часть секунд пишется, только если она есть
+    private static void appendDateTime(StringBuilder builder, LocalDateTime time) {
+        int year = time.getYear();
+        if (year < 0 || year > 9999 || time.getNano() != 0) {
+            builder.append(time.toLocalDate()).append('T').append(time.toLocalTime());
+            return;
+        }
+        appendDigits(builder, year, 4);
+        builder.append('-');
+        appendDigits(builder, time.getMonthValue(), 2);
+        builder.append('-');
+        appendDigits(builder, time.getDayOfMonth(), 2);
+        builder.append('T');
+        appendDigits(builder, time.getHour(), 2);
+        builder.append(':');
+        appendDigits(builder, time.getMinute(), 2);
+        builder.append(':');
+        appendDigits(builder, time.getSecond(), 2);
+    }
+
+    private static void appendDigits(StringBuilder builder, int value, int width) {
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            builder.append((char) ('0' + value / divisor % 10));
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.enums.TaskType;
+import main.java.ru.practicum.tasktracker.tasks.Epic;
+import main.java.ru.practicum.tasktracker.tasks.Subtask;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Потоковое чтение задач из CSV в формате TaskCsv. Символы читаются блоками в собственный
+// буфер и разбираются одним проходом: поля записи копируются в общий массив, из которого
+// числа, перечисления и время разбираются на месте, а строки создаются только для названия
+// и описания. Поле в кавычках может содержать запятые, удвоенные кавычки и переводы строк.
+public class TaskCsvReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    private static final int FIELDS = 8;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+
+    // Содержимое полей текущей записи без кавычек; поле i занимает [starts[i], ends[i])
+    private char[] record = new char[256];
+    private int length;
+    private final int[] starts = new int[FIELDS];
+    private final int[] ends = new int[FIELDS];
+    private int fieldCount;
+    private long lineNumber;
+
+    public TaskCsvReader(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public TaskCsvReader(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[Math.max(16, bufferSize)];
+    }
+
+    // Чтение части файла, перед которой уже прошло firstLine строк; номера строк в сообщениях
+    // об ошибках считаются от начала файла
+    static TaskCsvReader forChunk(Reader reader, long firstLine) {
+        TaskCsvReader csvReader = new TaskCsvReader(reader);
+        csvReader.lineNumber = firstLine;
+        return csvReader;
+    }
+
+    // Пропуск записи, например строки заголовка; возвращает false в конце данных
+    public boolean skip() throws IOException {
+        return readRecord();
+    }
+
+    // Следующая задача или null в конце данных
+    public Task next() throws IOException {
+        if (!readRecord()) {
+            return null;
+        }
+
+        try {
+            return toTask();
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException(
+                    "Некорректная строка " + lineNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean readRecord() throws IOException {
+        int c = read();
+        while (c == '\n' || c == '\r') {
+            if (c == '\n') {
+                lineNumber++;
+            }
+            c = read();
+        }
+        if (c < 0) {
+            return false;
+        }
+
+        lineNumber++;
+        length = 0;
+        fieldCount = 0;
+        startField();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IllegalArgumentException(
+                            "Незакрытая кавычка в строке " + lineNumber);
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    lineNumber++;
+                }
+                append((char) c);
+            } else if (c < 0 || c == '\n') {
+                endField();
+                return true;
+            } else if (c == ',') {
+                endField();
+                startField();
+            } else if (c == '"' && length == starts[fieldCount]) {
+                quoted = true;
+            } else if (c != '\r') {
+                append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private void startField() {
+        if (fieldCount == FIELDS) {
+            throw new IllegalArgumentException("Слишком много полей в строке " + lineNumber);
+        }
+        starts[fieldCount] = length;
+    }
+
+    private void endField() {
+        ends[fieldCount++] = length;
+    }
+
+    private void append(char c) {
+        if (length == record.length) {
+            record = Arrays.copyOf(record, length * 2);
+        }
+        record[length++] = c;
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private Task toTask() {
+        if (fieldCount < FIELDS - 1) {
+            throw new IllegalArgumentException("ожидалось " + FIELDS + " полей, получено "
+                    + fieldCount);
+        }
+
+        int id = parseInt(0);
+        TaskType type = parseEnum(1, TYPES);
+        String name = text(2);
+        Status status = parseEnum(3, STATUSES);
+        String description = text(4);
+        Duration duration = isNull(5) ? null : Duration.ofMinutes(parseLong(5));
+        LocalDateTime startTime = isNull(6) ? null : parseDateTime(6);
+
+        return switch (type) {
+            case TASK -> new Task(id, name, description, status, duration, startTime);
+            case EPIC -> new Epic(id, name, description, status);
+            case SUBTASK -> {
+                if (fieldCount < FIELDS) {
+                    throw new IllegalArgumentException("у подзадачи не указан эпик");
+                }
+                yield new Subtask(id, name, description, status, duration, startTime,
+                        parseInt(7));
+            }
+        };
+    }
+
+    private String text(int field) {
+        return new String(record, starts[field], ends[field] - starts[field]);
+    }
+
+    private boolean isNull(int field) {
+        int start = starts[field];
+        return ends[field] - start == 4 && record[start] == 'n' && record[start + 1] == 'u'
+                && record[start + 2] == 'l' && record[start + 3] == 'l';
+    }
+
+    private int parseInt(int field) {
+        long value = parseLong(field);
+        if (value != (int) value) {
+            throw new NumberFormatException("Число вне диапазона int: " + text(field));
+        }
+        return (int) value;
+    }
+
+    private long parseLong(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        boolean negative = start < end && record[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end || end - i > 18) {
+            return Long.parseLong(text(field));
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = record[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Некорректное число: " + text(field));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private <E extends Enum<E>> E parseEnum(int field, E[] constants) {
+        int start = starts[field];
+        int fieldLength = ends[field] - start;
+        for (E constant : constants) {
+            if (matches(constant.name(), start, fieldLength)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестное значение: " + text(field));
+    }
+
+    private boolean matches(String name, int start, int fieldLength) {
+        if (name.length() != fieldLength) {
+            return false;
+        }
+        for (int i = 0; i < fieldLength; i++) {
+            if (name.charAt(i) != record[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Разбор времени вида uuuu-MM-ddTHH:mm[:ss]; остальные варианты ISO_LOCAL_DATE_TIME
+    // разбирает LocalDateTime.parse
+    private LocalDateTime parseDateTime(int field) {
+        int s = starts[field];
+        int fieldLength = ends[field] - s;
+        if ((fieldLength != 16 && fieldLength != 19) || record[s + 4] != '-'
+                || record[s + 7] != '-' || record[s + 10] != 'T' || record[s + 13] != ':'
+                || (fieldLength == 19 && record[s + 16] != ':')) {
+            return LocalDateTime.parse(text(field));
+        }
+
+        int second = fieldLength == 19 ? digits(s + 17, 2, field) : 0;
+        return LocalDateTime.of(digits(s, 4, field), digits(s + 5, 2, field),
+                digits(s + 8, 2, field), digits(s + 11, 2, field), digits(s + 14, 2, field),
+                second);
+    }
+
+    private int digits(int from, int count, int field) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = record[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Некорректное время: " + text(field));
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
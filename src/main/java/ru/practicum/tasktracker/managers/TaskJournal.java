@@ -0,0 +1,208 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+// Журнал изменений (write-ahead log) в режиме дозаписи. Каждая запись - строка вида
+// "<crc32> <содержимое>", группа записей, которая должна примениться целиком, предваряется
+// заголовком "B,<количество>". При чтении журнал обрывается на первой поврежденной или
+// неполной записи: это хвост, не дописанный из-за сбоя, и он отбрасывается.
+// Закрытый сегмент можно сжать целиком через compress: дописываться в него уже не будет.
+// Переводы строк внутри записи (например, в названии задачи) экранируются как \n и \r,
+// обратная косая черта - как \\; контрольная сумма считается по экранированной строке.
+class TaskJournal implements Closeable {
+
+    private static final String GROUP = "B,";
+
+    private final File file;
+    private final FileChannel channel;
+
+    // Открытие журнала для дозаписи после его неповрежденной части длиной validLength
+    TaskJournal(File file, long validLength) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+    }
+
+    // Дозапись нескольких групп записей одной операцией записи
+    void append(List<List<String>> groups) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (List<String> group : groups) {
+            if (group.size() > 1) {
+                appendLine(builder, GROUP + group.size());
+            }
+            for (String record : group) {
+                appendLine(builder, record);
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Сброс записанного на диск
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    // Закрытие сегмента журнала: файл сбрасывается на диск и переименовывается в sealed,
+    // а записи продолжаются в новый пустой файл с прежним именем
+    TaskJournal rotate(File sealed) throws IOException {
+        force();
+        close();
+        Files.move(file.toPath(), sealed.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        return new TaskJournal(file, 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Сжатие закрытого сегмента блоками CompressedSnapshot. Сжатая копия пишется рядом
+    // и атомарно заменяет сегмент; записи с контрольными суммами внутри не меняются
+    static void compress(File sealed) throws IOException {
+        ByteBuffer content = CompressedSnapshot.compress(
+                ByteBuffer.wrap(Files.readAllBytes(sealed.toPath())));
+        File temp = new File(sealed.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(false);
+        }
+        Files.move(temp.toPath(), sealed.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Чтение целых групп записей из журнала или сегмента, в том числе сжатого; возвращает
+    // длину неповрежденной части в байтах
+    static long read(File file, List<List<String>> groups) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        if (CompressedSnapshot.isCompressed(file)) {
+            byte[] content = CompressedSnapshot.decompress(Files.readAllBytes(file.toPath()),
+                    ForkJoinPool.commonPool());
+            return read(new BufferedReader(new InputStreamReader(
+                    new ByteArrayInputStream(content), StandardCharsets.UTF_8)), content.length,
+                    groups);
+        }
+        return read(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8),
+                file.length(), groups);
+    }
+
+    private static long read(BufferedReader source, long fileLength, List<List<String>> groups)
+            throws IOException {
+        long validLength = 0;
+        long length = 0;
+        List<String> group = new ArrayList<>();
+        int expected = 0;
+        try (BufferedReader reader = source) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                length += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                String record = length <= fileLength ? verify(line) : null;
+                if (record == null) {
+                    break;
+                }
+
+                if (expected == 0 && record.startsWith(GROUP)) {
+                    expected = Integer.parseInt(record.substring(GROUP.length()));
+                    continue;
+                }
+                group.add(record);
+                if (group.size() >= expected) {
+                    groups.add(group);
+                    group = new ArrayList<>();
+                    expected = 0;
+                    validLength = length;
+                }
+            }
+        }
+        return validLength;
+    }
+
+    private static void appendLine(StringBuilder builder, String record) {
+        String escaped = escape(record);
+        builder.append(Long.toHexString(checksum(escaped))).append(' ').append(escaped)
+                .append('\n');
+    }
+
+    private static String escape(String record) {
+        if (record.indexOf('\\') < 0 && record.indexOf('\n') < 0 && record.indexOf('\r') < 0) {
+            return record;
+        }
+
+        StringBuilder builder = new StringBuilder(record.length() + 8);
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            switch (c) {
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                default -> builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String unescape(String record) {
+        if (record.indexOf('\\') < 0) {
+            return record;
+        }
+
+        StringBuilder builder = new StringBuilder(record.length());
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (c == '\\' && i + 1 < record.length()) {
+                char next = record.charAt(++i);
+                builder.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    // Содержимое записи или null, если контрольная сумма не сходится
+    private static String verify(String line) {
+        int separator = line.indexOf(' ');
+        if (separator <= 0) {
+            return null;
+        }
+
+        String record = line.substring(separator + 1);
+        try {
+            long expected = Long.parseLong(line.substring(0, separator), 16);
+            return expected == checksum(record) ? unescape(record) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long checksum(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
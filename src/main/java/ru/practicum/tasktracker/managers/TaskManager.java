@@ -1,6 +1,11 @@
 package main.java.ru.practicum.tasktracker.managers;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.enums.TaskType;
 import main.java.ru.practicum.tasktracker.tasks.Epic;
 import main.java.ru.practicum.tasktracker.tasks.Subtask;
 import main.java.ru.practicum.tasktracker.tasks.Task;
@@ -9,6 +14,10 @@ public interface TaskManager {
 
     List<Task> getTasks();
 
+    // Постраничные варианты списков: не более limit элементов, следующих за элементом с ID afterId.
+    // Списки задач упорядочены по ID; afterId = 0 означает первую страницу
+    List<Task> getTasks(int afterId, int limit);
+
     void deleteTasks();
 
     Task getTask(int id);
@@ -19,12 +28,25 @@ public interface TaskManager {
 
     boolean deleteTask(int id);
 
+    // Пакетные операции: пересечения проверяются для всего пакета до внесения изменений,
+    // поэтому при ошибке не применяется ни одна задача пакета
+    List<Task> createTasks(Collection<Task> tasks);
+
+    List<Task> updateTasks(Collection<Task> tasks);
+
+    // Возвращает количество удаленных задач
+    int deleteTasks(Collection<Integer> ids);
+
     List<Epic> getEpics();
 
+    List<Epic> getEpics(int afterId, int limit);
+
     Epic getEpic(int id);
 
     Epic createEpic(Epic epic);
 
+    List<Epic> createEpics(Collection<Epic> epics);
+
     Epic updateEpic(Epic epic);
 
     boolean deleteEpic(int id);
@@ -33,6 +55,8 @@ public interface TaskManager {
 
     List<Subtask> getSubtasks();
 
+    List<Subtask> getSubtasks(int afterId, int limit);
+
     Subtask getSubtask(int id);
 
     Subtask createSubtask(Subtask subtask);
@@ -41,7 +65,46 @@ public interface TaskManager {
 
     boolean deleteSubtask(int id);
 
+    List<Subtask> createSubtasks(Collection<Subtask> subtasks);
+
+    List<Subtask> updateSubtasks(Collection<Subtask> subtasks);
+
+    int deleteSubtasks(Collection<Integer> ids);
+
+    // Выполняет action над транзакцией и применяет накопленные изменения атомарно: пересечения
+    // и существование эпиков подзадач проверяются для итогового состояния, и при ошибке
+    // (OverlapException, TransactionException) или исключении в action ничего не меняется
+    void inTransaction(Consumer<TaskTransaction> action);
+
     List<Task> getHistory();
 
+    List<Task> getHistory(int afterId, int limit);
+
     List<Task> getPrioritizedTasks();
+
+    // Страница списка по приоритету, следующая за задачей afterId в порядке времени начала
+    List<Task> getPrioritizedTasks(int afterId, int limit);
+
+    // Задачи, идущие в интервале [from, to): начатые в нем или начатые раньше и еще не завершенные.
+    // Граница null означает отсутствие ограничения с этой стороны; если from позже to,
+    // выборка пуста
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to);
+
+    // Страница выборки по интервалу, следующая за задачей afterId выборки (0 - с начала)
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int afterId, int limit);
+
+    // Не более limit ближайших задач, начинающихся не раньше time
+    List<Task> getNextTasks(LocalDateTime time, int limit);
+
+    // Задачи, выполняющиеся в момент time
+    List<Task> getActiveTasks(LocalDateTime time);
+
+    // Задачи всех типов с указанным статусом по возрастанию ID
+    List<Task> getTasksByStatus(Status status);
+
+    List<Task> getTasksByStatus(Status status, TaskType type);
+
+    int countByStatus(Status status);
+
+    int countByStatus(Status status, TaskType type);
 }
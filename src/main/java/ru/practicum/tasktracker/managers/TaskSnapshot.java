@@ -0,0 +1,174 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.util.Comparator;
+import java.util.List;
+import main.java.ru.practicum.tasktracker.tasks.Epic;
+import main.java.ru.practicum.tasktracker.tasks.Subtask;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Согласованный срез хранилища на момент публикации версии. Срез неизменяем: последующие
+// изменения менеджера создают новую версию, разделяющую с этой неизменившиеся узлы.
+// Срез хранит собственные копии задач, снятые при публикации: менеджер меняет свои объекты
+// на месте (например, статус и время эпика при изменении подзадач), а копии в срезе не меняются
+// никогда. Поэтому изменять полученные из среза задачи нельзя - они общие для всех читателей.
+// Копия эпика включает ID подзадач и обходится в O(число подзадач).
+public final class TaskSnapshot {
+
+    static final TaskSnapshot EMPTY = new TaskSnapshot(0,
+            PersistentTreeMap.empty(Comparator.naturalOrder()),
+            PersistentTreeMap.empty(Comparator.naturalOrder()),
+            PersistentTreeMap.empty(Comparator.naturalOrder()),
+            PersistentTreeMap.empty(Comparator.naturalOrder()),
+            PersistentTreeMap.empty(Comparator.naturalOrder()));
+
+    private final long version;
+    private final PersistentTreeMap<Integer, Task> tasks;
+    private final PersistentTreeMap<Integer, Epic> epics;
+    private final PersistentTreeMap<Integer, Subtask> subtasks;
+    private final PersistentTreeMap<TimeSlot, Task> prioritizedTasks;
+    private final PersistentTreeMap<Integer, TimeSlot> prioritizedSlots;
+
+    private TaskSnapshot(long version, PersistentTreeMap<Integer, Task> tasks,
+            PersistentTreeMap<Integer, Epic> epics, PersistentTreeMap<Integer, Subtask> subtasks,
+            PersistentTreeMap<TimeSlot, Task> prioritizedTasks,
+            PersistentTreeMap<Integer, TimeSlot> prioritizedSlots) {
+        this.version = version;
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.prioritizedTasks = prioritizedTasks;
+        this.prioritizedSlots = prioritizedSlots;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Task> getTasks() {
+        return tasks.values();
+    }
+
+    public List<Epic> getEpics() {
+        return epics.values();
+    }
+
+    public List<Subtask> getSubtasks() {
+        return subtasks.values();
+    }
+
+    public List<Task> getPrioritizedTasks() {
+        return prioritizedTasks.values();
+    }
+
+    public List<Task> getTasks(int afterId, int limit) {
+        return tasks.valuesAfter(afterId, limit);
+    }
+
+    public List<Epic> getEpics(int afterId, int limit) {
+        return epics.valuesAfter(afterId, limit);
+    }
+
+    public List<Subtask> getSubtasks(int afterId, int limit) {
+        return subtasks.valuesAfter(afterId, limit);
+    }
+
+    // Страница списка по приоритету, следующая за задачей afterId
+    public List<Task> getPrioritizedTasks(int afterId, int limit) {
+        TimeSlot after = null;
+        if (afterId != 0) {
+            after = prioritizedSlots.get(afterId);
+            if (after == null) {
+                throw new IllegalArgumentException(
+                        "Задача с ID " + afterId + " отсутствует в списке по приоритету");
+            }
+        }
+        return prioritizedTasks.valuesAfter(after, limit);
+    }
+
+    Epic getEpic(int id) {
+        return epics.get(id);
+    }
+
+    Subtask getSubtask(int id) {
+        return subtasks.get(id);
+    }
+
+    TaskSnapshot withTask(Task task) {
+        Task copy = new Task(task.getId(), task.getTitle(), task.getDescription(),
+                task.getStatus(), task.getDuration(), task.getStartTime());
+        TaskSnapshot snapshot = withoutPrioritized(task.getId()).withPrioritized(copy);
+        return snapshot.copy(snapshot.tasks.put(task.getId(), copy), epics, snapshot.subtasks);
+    }
+
+    TaskSnapshot withoutTask(int id) {
+        TaskSnapshot snapshot = withoutPrioritized(id);
+        return snapshot.copy(snapshot.tasks.remove(id), epics, snapshot.subtasks);
+    }
+
+    TaskSnapshot withoutTasks() {
+        TaskSnapshot snapshot = this;
+        for (Task task : tasks.values()) {
+            snapshot = snapshot.withoutPrioritized(task.getId());
+        }
+        return snapshot.copy(tasks.clear(), epics, snapshot.subtasks);
+    }
+
+    TaskSnapshot withEpic(Epic epic) {
+        Epic copy = new Epic(epic.getId(), epic.getTitle(), epic.getDescription(),
+                epic.getStatus());
+        epic.forEachSubtaskId(copy::addSubtaskId);
+        copy.setDuration(epic.getDuration());
+        copy.setStartTime(epic.getStartTime());
+        copy.setEndTime(epic.getEndTime());
+        return copy(tasks, epics.put(epic.getId(), copy), subtasks);
+    }
+
+    TaskSnapshot withoutEpic(int id) {
+        return copy(tasks, epics.remove(id), subtasks);
+    }
+
+    TaskSnapshot withSubtask(Subtask subtask) {
+        Subtask copy = new Subtask(subtask.getId(), subtask.getTitle(), subtask.getDescription(),
+                subtask.getStatus(), subtask.getDuration(), subtask.getStartTime(),
+                subtask.getEpicId());
+        TaskSnapshot snapshot = withoutPrioritized(subtask.getId()).withPrioritized(copy);
+        return snapshot.copy(snapshot.tasks, epics, snapshot.subtasks.put(subtask.getId(), copy));
+    }
+
+    TaskSnapshot withoutSubtask(int id) {
+        TaskSnapshot snapshot = withoutPrioritized(id);
+        return snapshot.copy(snapshot.tasks, epics, snapshot.subtasks.remove(id));
+    }
+
+    // Следующая версия среза с тем же составом
+    TaskSnapshot nextVersion() {
+        return new TaskSnapshot(version + 1, tasks, epics, subtasks, prioritizedTasks,
+                prioritizedSlots);
+    }
+
+    private TaskSnapshot withPrioritized(Task task) {
+        if (task.getStartTime() == null) {
+            return this;
+        }
+
+        TimeSlot slot = TimeSlot.of(task);
+        return new TaskSnapshot(version, tasks, epics, subtasks, prioritizedTasks.put(slot, task),
+                prioritizedSlots.put(task.getId(), slot));
+    }
+
+    private TaskSnapshot withoutPrioritized(int id) {
+        TimeSlot slot = prioritizedSlots.get(id);
+        if (slot == null) {
+            return this;
+        }
+
+        return new TaskSnapshot(version, tasks, epics, subtasks, prioritizedTasks.remove(slot),
+                prioritizedSlots.remove(id));
+    }
+
+    private TaskSnapshot copy(PersistentTreeMap<Integer, Task> tasks,
+            PersistentTreeMap<Integer, Epic> epics, PersistentTreeMap<Integer, Subtask> subtasks) {
+        return new TaskSnapshot(version, tasks, epics, subtasks, prioritizedTasks,
+                prioritizedSlots);
+    }
+}
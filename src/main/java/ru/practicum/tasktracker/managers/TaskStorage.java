@@ -0,0 +1,54 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import main.java.ru.practicum.tasktracker.collections.IntMap;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Хранилище объектов задач одного типа по ID. Индексы InMemoryTaskManager держат только ID
+// и состояния задач, а сами задачи берут отсюда, поэтому объекты не обязаны жить в куче:
+// MappedTaskManager читает задачи из записей отображенного файла при каждом обращении.
+interface TaskStorage<T extends Task> {
+
+    // Задача с таким ID или null
+    T get(int id);
+
+    void put(T task);
+
+    // Возвращает false, если задачи с таким ID нет
+    boolean remove(int id);
+
+    void clear();
+
+    default void ensureCapacity(int expectedSize) {
+    }
+
+    // Хранилище объектов задач в куче
+    static <T extends Task> TaskStorage<T> inMemory() {
+        IntMap<T> tasks = new IntMap<>();
+        return new TaskStorage<>() {
+            @Override
+            public T get(int id) {
+                return tasks.get(id);
+            }
+
+            @Override
+            public void put(T task) {
+                tasks.put(task.getId(), task);
+            }
+
+            @Override
+            public boolean remove(int id) {
+                return tasks.remove(id) != null;
+            }
+
+            @Override
+            public void clear() {
+                tasks.clear();
+            }
+
+            @Override
+            public void ensureCapacity(int expectedSize) {
+                tasks.ensureCapacity(expectedSize);
+            }
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import main.java.ru.practicum.tasktracker.tasks.Epic;
+import main.java.ru.practicum.tasktracker.tasks.Subtask;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Набор изменений для TaskManager.inTransaction. Операции только накапливаются и применяются
+// менеджером все вместе после проверки итогового состояния либо не применяются вовсе.
+public interface TaskTransaction {
+
+    void createTask(Task task);
+
+    void updateTask(Task task);
+
+    void deleteTask(int id);
+
+    void createEpic(Epic epic);
+
+    void updateEpic(Epic epic);
+
+    void deleteEpic(int id);
+
+    void createSubtask(Subtask subtask);
+
+    void updateSubtask(Subtask subtask);
+
+    void deleteSubtask(int id);
+}
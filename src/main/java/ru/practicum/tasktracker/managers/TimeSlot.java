@@ -0,0 +1,20 @@
+package main.java.ru.practicum.tasktracker.managers;
+
+import java.time.LocalDateTime;
+import main.java.ru.practicum.tasktracker.tasks.Task;
+
+// Неизменяемый ключ задачи в индексе по времени: порядок по времени начала, затем по ID
+record TimeSlot(LocalDateTime start, LocalDateTime end, int id) implements Comparable<TimeSlot> {
+
+    static TimeSlot of(Task task) {
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getDuration() != null ? task.getEndTime() : start;
+        return new TimeSlot(start, end, task.getId());
+    }
+
+    @Override
+    public int compareTo(TimeSlot other) {
+        int result = start.compareTo(other.start);
+        return result != 0 ? result : Integer.compare(id, other.id);
+    }
+}
@@ -6,6 +6,8 @@ import main.java.ru.practicum.tasktracker.managers.Managers;
 import main.java.ru.practicum.tasktracker.server.handlers.*;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 public class HttpTaskServer {
 
@@ -19,6 +21,12 @@ public class HttpTaskServer {
         initContexts();
     }
 
+    // Сервер, обрабатывающий запросы в потоках executor; taskManager должен быть потокобезопасным
+    public HttpTaskServer(TaskManager taskManager, Executor executor) throws IOException {
+        this(taskManager);
+        server.setExecutor(executor);
+    }
+
     private void initContexts() {
         server.createContext("/tasks", new TaskHandler(taskManager));
         server.createContext("/subtasks", new SubtaskHandler(taskManager));
@@ -39,7 +47,8 @@ public class HttpTaskServer {
     }
 
     public static void main(String[] args) throws IOException {
-        HttpTaskServer httpTaskServer = new HttpTaskServer(Managers.getDefault());
+        HttpTaskServer httpTaskServer = new HttpTaskServer(Managers.getConcurrentTaskManager(),
+                Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
         httpTaskServer.start();
     }
 }
@@ -9,12 +9,20 @@ import main.java.ru.practicum.tasktracker.tasks.Epic;
 import main.java.ru.practicum.tasktracker.tasks.Subtask;
 import main.java.ru.practicum.tasktracker.tasks.Task;
 import java.io.IOException;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 public abstract class BaseHttpHandler implements HttpHandler {
 
+    // Размер страницы, если задан только параметр after
+    protected static final int DEFAULT_PAGE_LIMIT = 100;
+
     protected final Gson gson;
 
     public BaseHttpHandler() {
@@ -39,4 +47,55 @@ public abstract class BaseHttpHandler implements HttpHandler {
     protected void sendNotFound(HttpExchange exchange) throws IOException {
         sendResponse(exchange, "{\"error\":\"Не найдено\"}", 404);
     }
+
+    // Отправка списка целиком или, если заданы параметры limit и/или after, одной страницей
+    protected void sendList(HttpExchange exchange, Supplier<List<?>> all, PageReader page)
+            throws IOException {
+        Map<String, String> parameters = getQueryParameters(exchange);
+        if (!parameters.containsKey("limit") && !parameters.containsKey("after")) {
+            sendResponse(exchange, gson.toJson(all.get()), 200);
+            return;
+        }
+
+        List<?> items;
+        try {
+            int limit = Integer.parseInt(parameters.getOrDefault("limit",
+                    String.valueOf(DEFAULT_PAGE_LIMIT)));
+            int afterId = Integer.parseInt(parameters.getOrDefault("after", "0"));
+            if (limit <= 0 || afterId < 0) {
+                throw new IllegalArgumentException(
+                        "limit должен быть положительным, after - неотрицательным");
+            }
+            items = page.read(afterId, limit);
+        } catch (IllegalArgumentException e) {
+            sendResponse(exchange,
+                    String.format("Некорректный параметр запроса (%s).", e.getMessage()), 400);
+            return;
+        }
+        sendResponse(exchange, gson.toJson(items), 200);
+    }
+
+    // Параметры строки запроса в виде "имя -> значение"
+    protected Map<String, String> getQueryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator >= 0 ? pair.substring(0, separator) : pair;
+            String value = separator >= 0 ? pair.substring(separator + 1) : "";
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    @FunctionalInterface
+    protected interface PageReader {
+
+        List<?> read(int afterId, int limit);
+    }
 }
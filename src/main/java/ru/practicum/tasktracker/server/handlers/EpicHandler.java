@@ -46,9 +46,7 @@ public class EpicHandler extends TaskHandler {
 
     @Override
     protected void handleGetTasks(HttpExchange exchange) throws IOException {
-        List<Epic> epics = taskManager.getEpics();
-        String response = gson.toJson(epics);
-        sendResponse(exchange, response, 200);
+        sendList(exchange, taskManager::getEpics, taskManager::getEpics);
     }
 
     @Override
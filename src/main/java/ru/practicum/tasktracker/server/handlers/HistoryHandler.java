@@ -2,9 +2,7 @@ package main.java.ru.practicum.tasktracker.server.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
 import main.java.ru.practicum.tasktracker.managers.TaskManager;
-import main.java.ru.practicum.tasktracker.tasks.Task;
 import java.io.IOException;
-import java.util.List;
 
 public class HistoryHandler extends BaseHttpHandler {
 
@@ -24,8 +22,6 @@ public class HistoryHandler extends BaseHttpHandler {
     }
 
     private void handleGetHistory(HttpExchange exchange) throws IOException {
-        List<Task> history = taskManager.getHistory();
-        String response = gson.toJson(history);
-        sendResponse(exchange, response, 200);
+        sendList(exchange, taskManager::getHistory, taskManager::getHistory);
     }
 }
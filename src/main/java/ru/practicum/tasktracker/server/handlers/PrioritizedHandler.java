@@ -2,9 +2,10 @@ package main.java.ru.practicum.tasktracker.server.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
 import main.java.ru.practicum.tasktracker.managers.TaskManager;
-import main.java.ru.practicum.tasktracker.tasks.Task;
 import java.io.IOException;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
 
 public class PrioritizedHandler extends BaseHttpHandler {
 
@@ -23,9 +24,32 @@ public class PrioritizedHandler extends BaseHttpHandler {
         }
     }
 
+    // Параметры from и to (ISO-8601, например 2024-05-01T09:00) ограничивают выборку интервалом,
+    // а limit и after задают страницу списка или выборки по интервалу
     private void handleGetPrioritizedTasks(HttpExchange exchange) throws IOException {
-        List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
-        String response = gson.toJson(prioritizedTasks);
-        sendResponse(exchange, response, 200);
+        Map<String, String> parameters = getQueryParameters(exchange);
+        if (!parameters.containsKey("from") && !parameters.containsKey("to")) {
+            sendList(exchange, taskManager::getPrioritizedTasks,
+                    taskManager::getPrioritizedTasks);
+            return;
+        }
+
+        LocalDateTime from;
+        LocalDateTime to;
+        try {
+            from = parseTime(parameters.get("from"));
+            to = parseTime(parameters.get("to"));
+        } catch (DateTimeParseException e) {
+            sendResponse(exchange,
+                    String.format("Некорректный параметр запроса (%s).", e.getMessage()), 400);
+            return;
+        }
+
+        sendList(exchange, () -> taskManager.getPrioritizedTasks(from, to),
+                (afterId, limit) -> taskManager.getPrioritizedTasks(from, to, afterId, limit));
+    }
+
+    private LocalDateTime parseTime(String value) {
+        return value == null || value.isEmpty() ? null : LocalDateTime.parse(value);
     }
 }
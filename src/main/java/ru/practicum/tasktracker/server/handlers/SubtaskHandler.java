@@ -10,7 +10,6 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeParseException;
-import java.util.List;
 
 public class SubtaskHandler extends TaskHandler {
 
@@ -23,9 +22,7 @@ public class SubtaskHandler extends TaskHandler {
 
     @Override
     protected void handleGetTasks(HttpExchange exchange) throws IOException {
-        List<Subtask> subtasks = taskManager.getSubtasks();
-        String response = gson.toJson(subtasks);
-        sendResponse(exchange, response, 200);
+        sendList(exchange, taskManager::getSubtasks, taskManager::getSubtasks);
     }
 
     @Override
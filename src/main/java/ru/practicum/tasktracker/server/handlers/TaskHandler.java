@@ -6,7 +6,6 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeParseException;
-import java.util.List;
 import main.java.ru.practicum.tasktracker.exceptions.OverlapException;
 import main.java.ru.practicum.tasktracker.exceptions.UnknownStatusException;
 import main.java.ru.practicum.tasktracker.managers.InMemoryTaskManager;
@@ -49,9 +48,7 @@ public class TaskHandler extends BaseHttpHandler {
     }
 
     protected void handleGetTasks(HttpExchange exchange) throws IOException {
-        List<Task> tasks = taskManager.getTasks();
-        String response = gson.toJson(tasks);
-        sendResponse(exchange, response, 200);
+        sendList(exchange, taskManager::getTasks, taskManager::getTasks);
     }
 
     protected void handleGetTaskById(HttpExchange exchange, int id) throws IOException {
@@ -4,36 +4,134 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import main.java.ru.practicum.tasktracker.collections.IntSortedSet;
 import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.enums.TaskType;
 
 public class Epic extends Task {
 
-    private final List<Integer> subtaskIds;
+    private final IntSortedSet subtaskIds;
+    // Количество подзадач в каждом статусе, индекс - порядковый номер Status
+    private final int[] statusCounts = new int[Status.values().length];
+    // Мультимножества времени начала и окончания подзадач со временем: значение - число подзадач
+    private final TreeMap<LocalDateTime, Integer> subtaskStartTimes = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> subtaskEndTimes = new TreeMap<>();
+    private Duration subtasksDuration = Duration.ZERO;
     private LocalDateTime endTime;
 
     public Epic(String title, String description) {
         super(title, description);
-        this.subtaskIds = new ArrayList<>();
+        this.subtaskIds = new IntSortedSet();
     }
 
     public Epic(int id, String title, String description, Status status) {
         super(id, title, description, status);
-        this.subtaskIds = new ArrayList<>();
+        this.subtaskIds = new IntSortedSet();
     }
 
+    @Override
+    public TaskType getType() {
+        return TaskType.EPIC;
+    }
+
+    // Копия ID подзадач по возрастанию; для обхода без аллокаций есть forEachSubtaskId
     public List<Integer> getSubtaskIds() {
-        return subtaskIds;
+        List<Integer> ids = new ArrayList<>(subtaskIds.size());
+        subtaskIds.forEach(ids::add);
+        return ids;
+    }
+
+    public int getSubtaskCount() {
+        return subtaskIds.size();
+    }
+
+    // ID подзадачи по порядковому номеру (по возрастанию ID) для обхода без аллокаций
+    public int getSubtaskIdAt(int index) {
+        return subtaskIds.get(index);
     }
 
-    public void addSubtaskId(int subtaskId) {
+    public boolean containsSubtaskId(int subtaskId) {
+        return subtaskIds.contains(subtaskId);
+    }
+
+    public void forEachSubtaskId(IntConsumer action) {
+        subtaskIds.forEach(action);
+    }
+
+    public boolean addSubtaskId(int subtaskId) {
         if (subtaskId == getId()) {
             throw new IllegalArgumentException("Эпик не может содержать себя в качестве подзадачи");
         }
-        subtaskIds.add(subtaskId);
+        return subtaskIds.add(subtaskId);
+    }
+
+    public boolean removeSubtaskId(int subtaskId) {
+        return subtaskIds.remove(subtaskId);
+    }
+
+    // Перенос подзадач из прежней версии эпика вместе с выведенными из них статусом, временем
+    // и длительностью; собственные подзадачи эпика заменяются. Статус эпика без подзадач
+    // остается заданным
+    public void copySubtasksFrom(Epic previous) {
+        subtaskIds.clear();
+        previous.subtaskIds.forEach(subtaskIds::add);
+        System.arraycopy(previous.statusCounts, 0, statusCounts, 0, statusCounts.length);
+        subtaskStartTimes.clear();
+        subtaskStartTimes.putAll(previous.subtaskStartTimes);
+        subtaskEndTimes.clear();
+        subtaskEndTimes.putAll(previous.subtaskEndTimes);
+        subtasksDuration = previous.subtasksDuration;
+        updateTimesAndDuration();
+        if (!subtaskIds.isEmpty()) {
+            updateSubtaskStatus(null, null);
+        }
+    }
+
+    // Учет смены статуса подзадачи: null в oldStatus - подзадача добавлена, в newStatus - удалена.
+    // Статус эпика выводится из счетчиков за O(1), без обхода подзадач.
+    public void updateSubtaskStatus(Status oldStatus, Status newStatus) {
+        if (oldStatus != null) {
+            statusCounts[oldStatus.ordinal()]--;
+        }
+        if (newStatus != null) {
+            statusCounts[newStatus.ordinal()]++;
+        }
+
+        int total = 0;
+        for (int count : statusCounts) {
+            total += count;
+        }
+
+        if (statusCounts[Status.NEW.ordinal()] == total) {
+            setStatus(Status.NEW);
+        } else if (statusCounts[Status.DONE.ordinal()] == total) {
+            setStatus(Status.DONE);
+        } else {
+            setStatus(Status.IN_PROGRESS);
+        }
+    }
+
+    // Учет интервала [start, end) подзадачи во времени начала, окончания и длительности эпика
+    public void addSubtaskTime(LocalDateTime start, LocalDateTime end) {
+        subtaskStartTimes.merge(start, 1, Integer::sum);
+        subtaskEndTimes.merge(end, 1, Integer::sum);
+        subtasksDuration = subtasksDuration.plus(Duration.between(start, end));
+        updateTimesAndDuration();
+    }
+
+    public void removeSubtaskTime(LocalDateTime start, LocalDateTime end) {
+        subtaskStartTimes.computeIfPresent(start, (time, count) -> count > 1 ? count - 1 : null);
+        subtaskEndTimes.computeIfPresent(end, (time, count) -> count > 1 ? count - 1 : null);
+        subtasksDuration = subtasksDuration.minus(Duration.between(start, end));
+        updateTimesAndDuration();
     }
 
-    public void removeSubtaskId(int subtaskId) {
-        subtaskIds.remove(Integer.valueOf(subtaskId));
+    private void updateTimesAndDuration() {
+        setDuration(subtasksDuration);
+        setStartTime(subtaskStartTimes.isEmpty() ? null : subtaskStartTimes.firstKey());
+        setEndTime(subtaskEndTimes.isEmpty() ? null : subtaskEndTimes.lastKey());
     }
 
     @Override
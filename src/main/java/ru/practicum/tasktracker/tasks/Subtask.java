@@ -1,6 +1,7 @@
 package main.java.ru.practicum.tasktracker.tasks;
 
 import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.enums.TaskType;
 import java.time.Duration;
 import java.time.LocalDateTime;
 
@@ -36,6 +37,11 @@ public class Subtask extends Task {
         this.epicId = epicId;
     }
 
+    @Override
+    public TaskType getType() {
+        return TaskType.SUBTASK;
+    }
+
     public int getEpicId() {
         return epicId;
     }
@@ -1,13 +1,15 @@
 package main.java.ru.practicum.tasktracker.tasks;
 
 import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.enums.TaskType;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Task {
 
-    private static int idCounter = 0;
+    private static final AtomicInteger idCounter = new AtomicInteger();
 
     private final int id;
     private String title;
@@ -17,7 +19,7 @@ public class Task {
     private LocalDateTime startTime;
 
     public Task(String title, String description) {
-        this.id = ++idCounter;
+        this.id = idCounter.incrementAndGet();
         this.title = title;
         this.description = description;
         this.status = Status.NEW;
@@ -34,7 +36,7 @@ public class Task {
 
     public Task(String title, String description, Duration duration,
             LocalDateTime startTime) {
-        this.id = ++idCounter;
+        this.id = idCounter.incrementAndGet();
         this.title = title;
         this.description = description;
         this.status = Status.NEW;
@@ -56,6 +58,10 @@ public class Task {
         return id;
     }
 
+    public TaskType getType() {
+        return TaskType.TASK;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -0,0 +1,142 @@
+package test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.exceptions.OverlapException;
+import main.java.ru.practicum.tasktracker.managers.ConcurrentTaskManager;
+import main.java.ru.practicum.tasktracker.managers.TaskSnapshot;
+import main.java.ru.practicum.tasktracker.tasks.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTaskManagerTests extends InMemoryTaskManagerTests {
+
+    private static final int THREADS = 8;
+    private static final int TASKS_PER_THREAD = 500;
+
+    @BeforeEach
+    void setUp() {
+        taskManager = new ConcurrentTaskManager();
+    }
+
+    @Test
+    void testConcurrentCreateAndRead() throws Exception {
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createEpic(epic);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                    Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId());
+                    taskManager.createSubtask(subtask);
+                    taskManager.getSubtask(subtask.getId());
+                    taskManager.getEpicSubtasks(epic.getId());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(THREADS * TASKS_PER_THREAD, taskManager.getSubtasks().size(),
+                "Все подзадачи должны быть сохранены.");
+        assertEquals(THREADS * TASKS_PER_THREAD, epic.getSubtaskIds().size(),
+                "Все подзадачи должны быть привязаны к эпику.");
+        assertEquals(THREADS * TASKS_PER_THREAD, taskManager.getHistory().size(),
+                "Все просмотренные задачи должны попасть в историю.");
+        assertEquals(Status.NEW, epic.getStatus(), "Статус эпика должен быть NEW.");
+    }
+
+    @Test
+    void testConcurrentOverlappingTasks() throws Exception {
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                try {
+                    taskManager.createTask(new Task("Задача", "Описание", Duration.ofHours(1),
+                            startTime));
+                    return true;
+                } catch (OverlapException e) {
+                    return false;
+                }
+            }));
+        }
+        int created = 0;
+        for (Future<Boolean> future : futures) {
+            if (future.get()) {
+                created++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, created, "Из пересекающихся задач должна быть создана только одна.");
+        assertEquals(1, taskManager.getPrioritizedTasks().size(),
+                "В списке по приоритету должна быть одна задача.");
+    }
+
+    @Test
+    void testSnapshotIsNotAffectedByLaterChanges() {
+        ConcurrentTaskManager manager = (ConcurrentTaskManager) taskManager;
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+        Task task1 = new Task("Задача 1", "Описание 1", Duration.ofHours(1), startTime);
+        Task task2 = new Task("Задача 2", "Описание 2", Duration.ofHours(1),
+                startTime.plusHours(1));
+        manager.createTask(task1);
+
+        TaskSnapshot snapshot = manager.snapshot();
+        manager.createTask(task2);
+        manager.deleteTask(task1.getId());
+
+        assertEquals(List.of(task1), snapshot.getTasks(),
+                "Срез должен содержать задачи на момент его получения.");
+        assertEquals(List.of(task1), snapshot.getPrioritizedTasks(),
+                "Срез должен содержать список по приоритету на момент его получения.");
+        assertEquals(List.of(task2), manager.getTasks(), "Менеджер должен вернуть новые задачи.");
+        assertTrue(manager.snapshot().getVersion() > snapshot.getVersion(),
+                "Каждое изменение должно публиковать новую версию среза.");
+    }
+
+    @Test
+    void testSnapshotEpicIsNotAffectedByLaterChanges() {
+        ConcurrentTaskManager manager = (ConcurrentTaskManager) taskManager;
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", Duration.ofHours(1),
+                LocalDateTime.now().plusDays(1), epic.getId());
+        manager.createSubtask(subtask);
+
+        TaskSnapshot snapshot = manager.snapshot();
+        subtask.setStatus(Status.DONE);
+        manager.updateSubtask(subtask);
+
+        Epic published = snapshot.getEpics().getFirst();
+        assertEquals(Status.NEW, published.getStatus(),
+                "Статус эпика в срезе не должен меняться после публикации.");
+        assertEquals(List.of(subtask.getId()), published.getSubtaskIds(),
+                "Эпик в срезе должен содержать ID подзадач.");
+        assertEquals(Status.NEW, snapshot.getSubtasks().getFirst().getStatus(),
+                "Подзадача в срезе не должна меняться после публикации.");
+        assertEquals(Status.DONE, manager.snapshot().getEpics().getFirst().getStatus(),
+                "Новый срез должен содержать пересчитанный статус эпика.");
+
+        manager.deleteSubtask(subtask.getId());
+        assertEquals(Status.NEW, manager.snapshot().getEpics().getFirst().getStatus(),
+                "Удаление подзадачи должно публиковать пересчитанный эпик.");
+        assertTrue(manager.snapshot().getEpics().getFirst().getSubtaskIds().isEmpty(),
+                "Удаленная подзадача не должна оставаться в опубликованном эпике.");
+    }
+}
@@ -2,9 +2,25 @@ package test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import main.java.ru.practicum.tasktracker.enums.PersistenceMode;
+import main.java.ru.practicum.tasktracker.enums.SnapshotFormat;
+import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.exceptions.ManagerLoadException;
 import main.java.ru.practicum.tasktracker.exceptions.ManagerSaveException;
+import main.java.ru.practicum.tasktracker.exceptions.OverlapException;
+import main.java.ru.practicum.tasktracker.managers.BinarySnapshot;
+import main.java.ru.practicum.tasktracker.managers.CompressedSnapshot;
 import main.java.ru.practicum.tasktracker.managers.FileBackedTaskManager;
+import main.java.ru.practicum.tasktracker.managers.FsyncPolicy;
+import main.java.ru.practicum.tasktracker.managers.ParallelSnapshotReader;
 import main.java.ru.practicum.tasktracker.managers.TaskManager;
 import main.java.ru.practicum.tasktracker.tasks.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -50,6 +66,23 @@ public class FileBackedTaskManagerTests extends InMemoryTaskManagerTests {
         assertTrue(tasks.contains(task2), "Должна присутствовать задача 2.");
     }
 
+    @Test
+    void testSaveAndLoadBatch() {
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createEpics(List.of(epic));
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId());
+        Task task = new Task("Задача", "Описание");
+        taskManager.createSubtasks(List.of(subtask));
+        taskManager.createTasks(List.of(task));
+
+        TaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+
+        assertEquals(List.of(task), loadedManager.getTasks(), "Задача пакета должна сохраниться.");
+        assertEquals(List.of(epic), loadedManager.getEpics(), "Эпик пакета должен сохраниться.");
+        assertEquals(List.of(subtask), loadedManager.getSubtasks(),
+                "Подзадача пакета должна сохраниться.");
+    }
+
     @Test
     void testSaveAndLoadMultipleEpics() {
         Epic epic1 = new Epic("Эпик 1", "Описание 1");
@@ -92,4 +125,533 @@ public class FileBackedTaskManagerTests extends InMemoryTaskManagerTests {
         assertThrows(ManagerSaveException.class, () -> taskManager.createTask(task),
                 "Не удалось сохранить задачи в файл");
     }
+
+    @Test
+    void testJournalReplay() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile,
+                PersistenceMode.JOURNAL);
+        Task task1 = new Task("Задача 1", "Описание 1");
+        Task task2 = new Task("Задача 2", "Описание 2");
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createTask(task1);
+        manager.createTask(task2);
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId());
+        manager.createSubtask(subtask);
+        subtask.setStatus(Status.DONE);
+        manager.updateSubtask(subtask);
+        manager.deleteTask(task1.getId());
+        manager.close();
+
+        assertEquals(1, Files.readAllLines(tempFile.toPath()).size(),
+                "До сжатия журнала снимок не должен перезаписываться.");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile,
+                PersistenceMode.JOURNAL);
+        assertEquals(List.of(task2), loadedManager.getTasks(), "Должна остаться задача 2.");
+        assertEquals(List.of(subtask), loadedManager.getEpicSubtasks(epic.getId()),
+                "Подзадача должна быть привязана к эпику.");
+        assertEquals(Status.DONE, loadedManager.getEpic(epic.getId()).getStatus(),
+                "Статус эпика должен быть восстановлен.");
+        loadedManager.close();
+    }
+
+    @Test
+    void testJournalReplayUpdatedEpic() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile,
+                PersistenceMode.JOURNAL);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", Duration.ofMinutes(30),
+                LocalDateTime.of(2024, 1, 1, 10, 0), epic.getId());
+        manager.createSubtask(subtask);
+        subtask.setStatus(Status.DONE);
+        manager.updateSubtask(subtask);
+        manager.updateEpic(epic);
+        manager.updateEpic(new Epic(epic.getId(), "Новый эпик", "Новое описание", Status.NEW));
+        manager.close();
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile,
+                PersistenceMode.JOURNAL);
+        Epic loadedEpic = loadedManager.getEpic(epic.getId());
+        assertEquals(List.of(subtask), loadedManager.getEpicSubtasks(epic.getId()),
+                "Обновление эпика не должно отвязывать его подзадачи.");
+        assertEquals("Новый эпик", loadedEpic.getTitle(), "Название эпика должно обновиться.");
+        assertEquals(Status.DONE, loadedEpic.getStatus(),
+                "Статус эпика должен выводиться из подзадач.");
+        assertEquals(subtask.getStartTime(), loadedEpic.getStartTime(),
+                "Время эпика должно выводиться из подзадач.");
+        assertEquals(subtask.getEndTime(), loadedEpic.getEndTime(),
+                "Время окончания эпика должно выводиться из подзадач.");
+        loadedManager.close();
+    }
+
+    @Test
+    void testJournalSkipsDeletesOfOtherTypes() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile,
+                PersistenceMode.JOURNAL);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId());
+        manager.createSubtask(subtask);
+        long version = manager.getVersion();
+
+        assertEquals(0, manager.deleteTasks(List.of(epic.getId(), subtask.getId())),
+                "Эпик и подзадача не должны удаляться как задачи.");
+        assertEquals(0, manager.deleteSubtasks(List.of(epic.getId())),
+                "Эпик не должен удаляться как подзадача.");
+        assertEquals(version, manager.getVersion(),
+                "Удаление без изменений не должно менять версию.");
+        manager.close();
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile,
+                PersistenceMode.JOURNAL);
+        assertEquals(List.of(epic), loadedManager.getEpics(), "Эпик должен сохраниться.");
+        assertEquals(List.of(subtask), loadedManager.getSubtasks(),
+                "Подзадача должна сохраниться.");
+        loadedManager.close();
+    }
+
+    @Test
+    void testJournalTornTail() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile,
+                PersistenceMode.JOURNAL);
+        Task task1 = new Task("Задача 1", "Описание 1");
+        manager.createTask(task1);
+        manager.close();
+
+        File journalFile = new File(tempFile.getPath() + ".wal");
+        Files.writeString(journalFile.toPath(), "1a2b P,99,TASK,Недопи",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile,
+                PersistenceMode.JOURNAL);
+        assertEquals(List.of(task1), loadedManager.getTasks(),
+                "Недописанная запись журнала должна быть отброшена.");
+
+        Task task2 = new Task("Задача 2", "Описание 2");
+        loadedManager.createTask(task2);
+        loadedManager.close();
+        assertEquals(List.of(task1, task2), FileBackedTaskManager.loadFromFile(tempFile,
+                PersistenceMode.JOURNAL).getTasks(),
+                "Запись после отброшенного хвоста должна читаться.");
+    }
+
+    @Test
+    void testJournalCompaction() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile,
+                PersistenceMode.JOURNAL, 3);
+        Task task1 = new Task("Задача 1", "Описание 1");
+        Task task2 = new Task("Задача 2", "Описание 2");
+        Task task3 = new Task("Задача 3", "Описание 3");
+        manager.createTask(task1);
+        manager.createTask(task2);
+        manager.createTask(task3);
+        manager.close();
+
+        assertEquals(0, new File(tempFile.getPath() + ".wal").length(),
+                "После сжатия журнал должен быть пустым.");
+        assertEquals(List.of(task1, task2, task3),
+                FileBackedTaskManager.loadFromFile(tempFile).getTasks(),
+                "Снимок должен содержать все задачи.");
+    }
+
+    @Test
+    void testGroupCommit() throws Exception {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile,
+                PersistenceMode.JOURNAL, 1_000, FsyncPolicy.perWrite());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int thread = i;
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 25; j++) {
+                    manager.createTask(new Task("Задача " + thread + "-" + j, "Описание"));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Изменение считается сохраненным, как только createTask вернул управление
+        TaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(100, loadedManager.getTasks().size(),
+                "Журнал должен содержать задачи из всех потоков.");
+        manager.close();
+    }
+
+    @Test
+    void testIntervalFsync() {
+        assertThrows(IllegalArgumentException.class, () -> FsyncPolicy.everyMillis(0),
+                "Интервал сброса должен быть положительным.");
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile,
+                PersistenceMode.JOURNAL, 1_000, FsyncPolicy.everyMillis(10));
+        Task task = new Task("Задача 1", "Описание 1");
+        manager.createTask(task);
+        manager.close();
+
+        TaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile,
+                PersistenceMode.JOURNAL, 1_000, FsyncPolicy.everyMillis(10));
+        assertEquals(List.of(task), loadedManager.getTasks(),
+                "Задача должна восстановиться из журнала.");
+    }
+
+    @Test
+    void testWriteBehind() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile, Duration.ofMillis(50));
+        Task task1 = new Task("Задача 1", "Описание 1");
+        Task task2 = new Task("Задача 2", "Описание 2");
+        manager.createTask(task1);
+        manager.createTask(task2);
+        assertEquals(2, manager.getVersion(), "Каждое изменение должно увеличивать версию.");
+
+        manager.awaitPersisted(manager.getVersion());
+        assertTrue(manager.getPersistedVersion() >= 2, "Версия должна быть записана.");
+        assertEquals(List.of(task1, task2),
+                FileBackedTaskManager.loadFromFile(tempFile).getTasks(),
+                "Снимок должен содержать задачи, записанные в фоне.");
+
+        Task task3 = new Task("Задача 3", "Описание 3");
+        manager.createTask(task3);
+        manager.close();
+        assertEquals(3, manager.getPersistedVersion(),
+                "При закрытии должна записываться последняя версия.");
+        assertEquals(List.of(task1, task2, task3),
+                FileBackedTaskManager.loadFromFile(tempFile).getTasks(),
+                "Снимок должен содержать задачи, созданные перед закрытием.");
+    }
+
+    @Test
+    void testLoadRebuildsIndexes() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание 1", Duration.ofMinutes(30),
+                start.plusHours(2), epic.getId());
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание 2", Duration.ofMinutes(30),
+                start, epic.getId());
+        Task task = new Task("Задача", "Описание", Duration.ofMinutes(30), start.plusHours(1));
+        taskManager.createSubtask(subtask1);
+        taskManager.createSubtask(subtask2);
+        taskManager.createTask(task);
+        subtask2.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask2);
+
+        TaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+
+        Epic loadedEpic = loadedManager.getEpic(epic.getId());
+        assertEquals(List.of(subtask1.getId(), subtask2.getId()), loadedEpic.getSubtaskIds(),
+                "Подзадачи должны быть привязаны к эпику.");
+        assertEquals(Status.IN_PROGRESS, loadedEpic.getStatus(),
+                "Статус эпика должен рассчитываться по подзадачам.");
+        assertEquals(start, loadedEpic.getStartTime(), "Начало эпика - начало первой подзадачи.");
+        assertEquals(start.plusMinutes(150), loadedEpic.getEndTime(),
+                "Окончание эпика - окончание последней подзадачи.");
+        assertEquals(List.of(subtask2, task, subtask1), loadedManager.getPrioritizedTasks(),
+                "Задачи должны быть упорядочены по времени начала.");
+        assertEquals(1, loadedManager.countByStatus(Status.DONE), "Должна быть одна задача DONE.");
+        assertThrows(OverlapException.class, () -> loadedManager.createTask(new Task("Новая",
+                        "Описание", Duration.ofMinutes(30), start.plusMinutes(75))),
+                "Пересечение с загруженной задачей должно обнаруживаться.");
+    }
+
+    @Test
+    void testSaveAndLoadSpecialCharacters() {
+        Task task = new Task("Купить хлеб, молоко", "Сказать \"спасибо\"\nи уйти \\ домой");
+        Epic epic = new Epic("\"Эпик\"", "");
+        taskManager.createTask(task);
+        taskManager.createEpic(epic);
+
+        TaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        Task loadedTask = loadedManager.getTask(task.getId());
+        assertEquals(task.getTitle(), loadedTask.getTitle(), "Запятая не должна разбивать поле.");
+        assertEquals(task.getDescription(), loadedTask.getDescription(),
+                "Кавычки и перевод строки должны сохраняться.");
+        assertEquals(epic.getTitle(), loadedManager.getEpic(epic.getId()).getTitle(),
+                "Поле в кавычках должно читаться без изменений.");
+
+        FileBackedTaskManager journalManager = new FileBackedTaskManager(tempFile,
+                PersistenceMode.JOURNAL);
+        journalManager.createTask(task);
+        journalManager.close();
+        assertEquals(task.getDescription(), FileBackedTaskManager.loadFromFile(tempFile,
+                PersistenceMode.JOURNAL).getTask(task.getId()).getDescription(),
+                "Перевод строки в записи журнала должен сохраняться.");
+    }
+
+    @Test
+    void testBinarySnapshot() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile,
+                PersistenceMode.SNAPSHOT, SnapshotFormat.BINARY);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Epic epic = new Epic("Эпик", "Описание, с запятой");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", Duration.ofMinutes(45),
+                start.plusSeconds(30), epic.getId());
+        Task task = new Task("Задача", "Описание", Duration.ofMinutes(30), start.plusHours(1));
+        manager.createSubtask(subtask);
+        manager.createTask(task);
+
+        assertTrue(BinarySnapshot.isBinary(tempFile), "Снимок должен быть в двоичном формате.");
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        Subtask loadedSubtask = loadedManager.getSubtask(subtask.getId());
+        assertEquals(subtask.getStartTime(), loadedSubtask.getStartTime(),
+                "Время с секундами должно сохраняться.");
+        assertEquals(subtask.getDuration(), loadedSubtask.getDuration(),
+                "Длительность должна сохраняться.");
+        assertEquals(epic.getId(), loadedSubtask.getEpicId(), "Эпик подзадачи должен сохраняться.");
+        assertEquals(epic.getDescription(), loadedManager.getEpic(epic.getId()).getDescription(),
+                "Описание должно сохраняться.");
+        assertEquals(List.of(subtask, task), loadedManager.getPrioritizedTasks(),
+                "Задачи должны восстанавливаться в порядке приоритета.");
+
+        // Загруженный без указания формата менеджер сохраняет файл в том же формате
+        loadedManager.deleteTask(task.getId());
+        assertTrue(BinarySnapshot.isBinary(tempFile), "Формат файла должен сохраняться.");
+    }
+
+    @Test
+    void testConvertCsvToBinary() throws IOException {
+        Task task = new Task("Задача", "Описание", Duration.ofMinutes(30),
+                LocalDateTime.of(2024, 1, 1, 10, 0));
+        taskManager.createTask(task);
+        File binaryFile = File.createTempFile("tasktracker", ".bin");
+
+        BinarySnapshot.convertCsv(tempFile, binaryFile);
+        assertTrue(binaryFile.length() < tempFile.length(),
+                "Двоичный снимок должен быть меньше CSV.");
+        Task loadedTask = FileBackedTaskManager.loadFromFile(binaryFile).getTask(task.getId());
+        assertEquals(task.getStartTime(), loadedTask.getStartTime(),
+                "Время начала должно сохраняться при переводе.");
+
+        byte[] bytes = Files.readAllBytes(binaryFile.toPath());
+        bytes[bytes.length - 14] ^= 1;
+        Files.write(binaryFile.toPath(), bytes);
+        assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(binaryFile),
+                "Поврежденный блок должен обнаруживаться по контрольной сумме.");
+    }
+
+    @Test
+    void testParallelRead() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tasks.add(new Task("Задача " + i, i % 7 == 0 ? "Строка 1,\n\"строка\" 2" : "Описание"));
+        }
+        taskManager.createTasks(tasks);
+        File binaryFile = File.createTempFile("tasktracker", ".bin");
+        BinarySnapshot.convertCsv(tempFile, binaryFile);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Task> fromCsv = ParallelSnapshotReader.read(tempFile, pool);
+            assertEquals(tasks, fromCsv, "Задачи CSV должны читаться по частям в порядке файла.");
+            assertEquals(tasks.get(7).getDescription(), fromCsv.get(7).getDescription(),
+                    "Поле с переводом строки не должно разрываться границей части.");
+            assertEquals(tasks, ParallelSnapshotReader.read(binaryFile, pool),
+                    "Блоки двоичного снимка должны собираться в порядке файла.");
+
+            List<String> lines = new ArrayList<>(Files.readAllLines(tempFile.toPath()));
+            lines.set(lines.size() - 1, "x,TASK");
+            Files.write(tempFile.toPath(), lines);
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> ParallelSnapshotReader.read(tempFile, pool),
+                    "Ошибка в последней части должна обнаруживаться.");
+            assertTrue(e.getMessage().contains("строка " + lines.size()),
+                    "Номер строки должен считаться от начала файла.");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testCheckpointRecovery() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile,
+                PersistenceMode.JOURNAL, 50);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            Task task = new Task("Задача " + i, "Описание");
+            tasks.add(task);
+            manager.createTask(task);
+        }
+        manager.checkpoint();
+        for (int i = 0; i < 10; i++) {
+            tasks.get(i).setStatus(Status.DONE);
+            manager.updateTask(tasks.get(i));
+        }
+
+        File directory = tempFile.getAbsoluteFile().getParentFile();
+        String[] segments = directory.list((dir, name) ->
+                name.startsWith(tempFile.getName() + ".wal."));
+        assertEquals(0, segments.length, "Покрытые контрольной точкой сегменты удаляются.");
+        assertTrue(new File(tempFile.getPath() + ".checkpoint").exists(),
+                "Контрольная точка должна отмечать покрытый сегмент.");
+
+        // Менеджер не закрыт, как после сбоя: применяется только хвост журнала
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile,
+                PersistenceMode.JOURNAL, 50);
+        assertEquals(tasks, loadedManager.getTasks(), "Должны восстановиться все задачи.");
+        assertEquals(10, loadedManager.countByStatus(Status.DONE),
+                "Изменения после контрольной точки должны восстановиться.");
+        assertEquals(10, loadedManager.getRecoveredRecords(),
+                "Применяться должны только записи после контрольной точки.");
+        assertFalse(loadedManager.getRecoveryTime().isNegative(),
+                "Время восстановления должно измеряться.");
+        manager.close();
+        loadedManager.close();
+    }
+
+    @Test
+    void testCheckpointRecoveryUpdatedEpic() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile,
+                PersistenceMode.JOURNAL, 50);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Subtask subtask = new Subtask("Подзадача " + i, "Описание", Duration.ofMinutes(30),
+                    LocalDateTime.of(2024, 1, 1, 10 + i, 0), epic.getId());
+            subtasks.add(subtask);
+            manager.createSubtask(subtask);
+        }
+        manager.checkpoint();
+        subtasks.getFirst().setStatus(Status.DONE);
+        manager.updateSubtask(subtasks.getFirst());
+        manager.updateEpic(new Epic(epic.getId(), "Новый эпик", "Описание", Status.NEW));
+        manager.close();
+
+        // Журнал после контрольной точки восстанавливается как закрытый, но не покрытый сегмент
+        File journalFile = new File(tempFile.getPath() + ".wal");
+        Files.move(journalFile.toPath(), new File(tempFile.getPath() + ".wal.2").toPath());
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile,
+                PersistenceMode.JOURNAL, 50);
+        Epic loadedEpic = loadedManager.getEpic(epic.getId());
+        assertEquals(2, loadedManager.getRecoveredRecords(),
+                "Должны примениться записи закрытого сегмента.");
+        assertEquals(subtasks, loadedManager.getEpicSubtasks(epic.getId()),
+                "Обновление эпика не должно отвязывать его подзадачи.");
+        assertEquals("Новый эпик", loadedEpic.getTitle(), "Название эпика должно обновиться.");
+        assertEquals(Status.IN_PROGRESS, loadedEpic.getStatus(),
+                "Статус эпика должен выводиться из подзадач.");
+        assertEquals(Duration.ofMinutes(90), loadedEpic.getDuration(),
+                "Длительность эпика должна выводиться из подзадач.");
+        loadedManager.checkpoint();
+        loadedManager.close();
+
+        FileBackedTaskManager checkpointed = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(subtasks, checkpointed.getEpicSubtasks(epic.getId()),
+                "Подзадачи эпика должны попасть в снимок контрольной точки.");
+        assertEquals(Status.IN_PROGRESS, checkpointed.getEpic(epic.getId()).getStatus(),
+                "Статус эпика должен восстановиться из снимка.");
+    }
+
+    @Test
+    void testInterruptedCheckpointAfterEpicDeletion() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile,
+                PersistenceMode.JOURNAL, 50);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        manager.checkpoint();
+        manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+        manager.deleteEpic(epic.getId());
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+
+        // Сбой после записи снимка, но до отметки контрольной точки: новый снимок уже без
+        // эпика, а отметка и закрытый сегмент остаются прежними
+        File journalFile = new File(tempFile.getPath() + ".wal");
+        File segment = new File(tempFile.getPath() + ".wal.2");
+        File checkpointFile = new File(tempFile.getPath() + ".checkpoint");
+        byte[] journal = Files.readAllBytes(journalFile.toPath());
+        manager.checkpoint();
+        manager.close();
+        Files.write(segment.toPath(), journal);
+        Files.writeString(checkpointFile.toPath(), "1");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile,
+                PersistenceMode.JOURNAL, 50);
+        assertEquals(4, loadedManager.getRecoveredRecords(),
+                "Должны примениться записи непокрытого сегмента.");
+        assertTrue(loadedManager.getEpics().isEmpty(), "Удаленный эпик не должен вернуться.");
+        assertTrue(loadedManager.getSubtasks().isEmpty(),
+                "Подзадачи удаленного эпика не должны возвращаться без него.");
+        assertEquals(List.of(task), loadedManager.getTasks(), "Задача должна сохраниться.");
+        loadedManager.close();
+    }
+
+    @Test
+    void testCompressedSnapshot() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            tasks.add(new Task("Задача " + i, i % 7 == 0 ? "Строка 1,\n\"строка\" 2" : "Описание"));
+        }
+        taskManager.createTasks(tasks);
+        long csvLength = tempFile.length();
+
+        for (SnapshotFormat format : List.of(SnapshotFormat.CSV_DEFLATE,
+                SnapshotFormat.BINARY_DEFLATE)) {
+            File compressedFile = File.createTempFile("tasktracker", ".tkz");
+            compressedFile.deleteOnExit();
+            FileBackedTaskManager manager = new FileBackedTaskManager(compressedFile,
+                    PersistenceMode.SNAPSHOT, format);
+            List<Task> created = tasks.stream().map(task -> new Task(task.getTitle(),
+                    task.getDescription())).toList();
+            manager.createTasks(created);
+            assertTrue(CompressedSnapshot.isCompressed(compressedFile),
+                    "Снимок должен быть сжат в формате " + format + ".");
+            assertTrue(compressedFile.length() < csvLength,
+                    "Сжатый снимок должен быть меньше CSV.");
+
+            FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(compressedFile);
+            assertEquals(created, loadedManager.getTasks(), "Задачи должны восстанавливаться.");
+            assertEquals(tasks.get(7).getDescription(),
+                    loadedManager.getTask(created.get(7).getId()).getDescription(),
+                    "Описание должно сохраняться без изменений.");
+
+            // Загруженный без указания формата менеджер сохраняет файл в том же формате
+            loadedManager.deleteTask(created.getLast().getId());
+            assertTrue(CompressedSnapshot.isCompressed(compressedFile),
+                    "Сжатие должно сохраняться при перезаписи снимка.");
+            assertEquals(tasks.size() - 1, FileBackedTaskManager.loadFromFile(compressedFile)
+                    .getTasks().size(), "Перезаписанный снимок должен загружаться.");
+
+            byte[] bytes = Files.readAllBytes(compressedFile.toPath());
+            bytes[bytes.length / 2] ^= 1;
+            Files.write(compressedFile.toPath(), bytes);
+            assertThrows(ManagerLoadException.class,
+                    () -> FileBackedTaskManager.loadFromFile(compressedFile),
+                    "Поврежденный блок должен обнаруживаться.");
+        }
+    }
+
+    @Test
+    void testCompressedJournalSegment() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile,
+                PersistenceMode.JOURNAL, SnapshotFormat.CSV_DEFLATE);
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+
+        // Снимок контрольной точки не записать, поэтому закрытый сегмент остается на диске
+        File blocker = new File(tempFile.getPath() + ".tmp");
+        assertTrue(blocker.mkdir(), "Не удалось занять имя временного файла снимка.");
+        assertThrows(ManagerSaveException.class, manager::checkpoint,
+                "Сбой контрольной точки должен сообщаться.");
+        manager.close();
+        blocker.delete();
+
+        File segment = new File(tempFile.getPath() + ".wal.1");
+        assertTrue(CompressedSnapshot.isCompressed(segment),
+                "Закрытый сегмент должен быть сжат.");
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile,
+                PersistenceMode.JOURNAL);
+        assertEquals(List.of(task), loadedManager.getTasks(),
+                "Записи сжатого сегмента должны примениться.");
+        assertEquals(1, loadedManager.getRecoveredRecords(),
+                "Должна примениться запись сжатого сегмента.");
+        loadedManager.close();
+    }
 }
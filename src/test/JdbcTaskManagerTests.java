@@ -0,0 +1,118 @@
+package test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.exceptions.OverlapException;
+import main.java.ru.practicum.tasktracker.managers.JdbcTaskManager;
+import main.java.ru.practicum.tasktracker.tasks.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class JdbcTaskManagerTests extends InMemoryTaskManagerTests {
+
+    @TempDir
+    Path directory;
+    private String url;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(hasDriver(), "Для тестов нужен драйвер H2 в classpath.");
+        url = "jdbc:h2:" + directory.resolve("tasks").toAbsolutePath();
+        taskManager = new JdbcTaskManager(url);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (taskManager != null) {
+            ((JdbcTaskManager) taskManager).close();
+        }
+    }
+
+    @Test
+    void testReopenRestoresTasks() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0, 15, 500);
+        Task task = new Task("Задача, с запятой", null, Duration.ofMinutes(30), start);
+        Epic epic = new Epic("Эпик", "Описание\nв две строки");
+        taskManager.createTask(task);
+        taskManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание", Duration.ofMinutes(45),
+                start.plusHours(1), epic.getId());
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание", Duration.ofMinutes(15),
+                start.plusHours(3), epic.getId());
+        taskManager.createSubtasks(List.of(subtask1, subtask2));
+        subtask1.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask1);
+        ((JdbcTaskManager) taskManager).close();
+
+        taskManager = new JdbcTaskManager(url);
+        Task loadedTask = taskManager.getTask(task.getId());
+        assertEquals(task.getTitle(), loadedTask.getTitle(), "Название должно сохраниться.");
+        assertNull(loadedTask.getDescription(), "Пустое описание должно остаться null.");
+        assertEquals(start, loadedTask.getStartTime(), "Время начала должно сохраниться точно.");
+
+        Epic loadedEpic = taskManager.getEpic(epic.getId());
+        assertEquals(epic.getDescription(), loadedEpic.getDescription(),
+                "Перевод строки в описании должен сохраниться.");
+        assertEquals(List.of(subtask1.getId(), subtask2.getId()), loadedEpic.getSubtaskIds(),
+                "Эпик должен содержать ID своих подзадач.");
+        assertEquals(Status.IN_PROGRESS, loadedEpic.getStatus(),
+                "Статус эпика должен рассчитываться по подзадачам.");
+        assertEquals(subtask1.getStartTime(), loadedEpic.getStartTime(),
+                "Начало эпика - начало первой подзадачи.");
+        assertEquals(subtask2.getEndTime(), loadedEpic.getEndTime(),
+                "Окончание эпика - окончание последней подзадачи.");
+        assertEquals(Duration.ofHours(1), loadedEpic.getDuration(),
+                "Длительность эпика - сумма длительностей подзадач.");
+        assertEquals(List.of(task, subtask1, subtask2), taskManager.getPrioritizedTasks(),
+                "Задачи должны быть упорядочены по времени начала.");
+        assertThrows(OverlapException.class, () -> taskManager.createTask(new Task("Новая",
+                        "Описание", Duration.ofMinutes(30), start.plusMinutes(10))),
+                "Пересечение с сохраненной задачей должно обнаруживаться.");
+    }
+
+    @Test
+    void testFailedBatchIsRolledBack() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        // Задачи нулевой длительности в момент окончания задачи созданы раньше нее и идут
+        // в индексе времени окончания перед ней, поэтому проверки должны пройти их все
+        for (int i = 0; i < 20; i++) {
+            taskManager.createTask(new Task("Точка " + i, "Описание", Duration.ZERO,
+                    start.plusHours(1)));
+        }
+        Task task = new Task("Задача", "Описание", Duration.ofHours(1), start);
+        taskManager.createTask(task);
+
+        Task first = new Task("Первая", "Описание", Duration.ofMinutes(30), start.plusHours(2));
+        Task conflicting = new Task("Пересекающаяся", "Описание", Duration.ofMinutes(10),
+                start.plusMinutes(50));
+        assertThrows(OverlapException.class,
+                () -> taskManager.createTasks(List.of(first, conflicting)),
+                "Пересечение с задачей в базе должно обнаруживаться после записи пакета.");
+        assertNull(taskManager.getTask(first.getId()),
+                "При ошибке не должна сохраняться ни одна задача пакета.");
+        assertEquals(21, taskManager.getTasks().size(), "Прежние задачи должны остаться.");
+
+        Task inside = new Task("Внутри", "Описание", Duration.ZERO, start.plusMinutes(30));
+        assertThrows(OverlapException.class, () -> taskManager.createTask(inside),
+                "Задача нулевой длительности внутри интервала пересекается с ним.");
+        assertEquals(List.of(task), taskManager.getActiveTasks(start.plusMinutes(30)),
+                "Активной должна быть начатая ранее задача.");
+    }
+
+    private static boolean hasDriver() {
+        try {
+            Class.forName("org.h2.Driver");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -71,6 +71,64 @@ public class PrioritizedHandlerTests {
         }
     }
 
+    @Test
+    public void testGetPrioritizedTasksInRange() throws IOException, InterruptedException {
+        LocalDateTime startTime = LocalDateTime.of(2030, 5, 1, 9, 0);
+        createTestTask("Задача 1", "Описание задачи 1", Duration.ofHours(1), startTime);
+        Task task2 = createTestTask("Задача 2", "Описание задачи 2", Duration.ofHours(1),
+                startTime.plusDays(1));
+        createTestTask("Задача 3", "Описание задачи 3", Duration.ofHours(1),
+                startTime.plusDays(8));
+
+        HttpResponse<String> response = sendGetRequest(
+                "http://localhost:8080/prioritized?from=2030-05-02T00:00&to=2030-05-09T00:00");
+
+        assertEquals(200, response.statusCode(), "Не удалось получить приоритетные задачи");
+
+        JsonArray prioritizedArray = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(1, prioritizedArray.size(), "Некорректное количество задач в интервале");
+        assertEquals(task2.getId(), prioritizedArray.get(0).getAsJsonObject().get("id").getAsInt(),
+                "Некорректный ID задачи в интервале");
+
+        response = sendGetRequest("http://localhost:8080/prioritized?from=завтра");
+        assertEquals(400, response.statusCode(), "Некорректная граница интервала не отклонена");
+
+        response = sendGetRequest(
+                "http://localhost:8080/prioritized?from=2030-05-02T00:00&to=2030-05-01T00:00");
+        assertEquals(200, response.statusCode(), "Интервал с началом позже конца не обработан");
+        assertEquals(0, JsonParser.parseString(response.body()).getAsJsonArray().size(),
+                "Выборка по интервалу с началом позже конца должна быть пустой");
+    }
+
+    @Test
+    public void testGetPrioritizedTasksInRangeByPages() throws IOException, InterruptedException {
+        LocalDateTime startTime = LocalDateTime.of(2030, 5, 1, 9, 0);
+        createTestTask("Задача 1", "Описание задачи 1", Duration.ofHours(1), startTime);
+        Task task2 = createTestTask("Задача 2", "Описание задачи 2", Duration.ofHours(1),
+                startTime.plusDays(1));
+        Task task3 = createTestTask("Задача 3", "Описание задачи 3", Duration.ofHours(1),
+                startTime.plusDays(2));
+        createTestTask("Задача 4", "Описание задачи 4", Duration.ofHours(1),
+                startTime.plusDays(8));
+
+        String range = "http://localhost:8080/prioritized?from=2030-05-02T00:00&to=2030-05-09T00:00";
+        HttpResponse<String> response = sendGetRequest(range + "&limit=1");
+        assertEquals(200, response.statusCode(), "Не удалось получить страницу интервала");
+        JsonArray page = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(1, page.size(), "Страница должна быть ограничена параметром limit");
+        assertEquals(task2.getId(), page.get(0).getAsJsonObject().get("id").getAsInt(),
+                "Некорректный ID задачи на первой странице");
+
+        response = sendGetRequest(range + "&limit=5&after=" + task2.getId());
+        page = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(1, page.size(), "Вторая страница должна содержать оставшуюся задачу");
+        assertEquals(task3.getId(), page.get(0).getAsJsonObject().get("id").getAsInt(),
+                "Некорректный ID задачи на второй странице");
+
+        response = sendGetRequest(range + "&after=999");
+        assertEquals(400, response.statusCode(), "ID вне выборки не отклонен");
+    }
+
     private HttpResponse<String> sendGetRequest(String uri)
             throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
@@ -1,5 +1,8 @@
 package test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 import main.java.ru.practicum.tasktracker.enums.Status;
 import main.java.ru.practicum.tasktracker.managers.InMemoryTaskManager;
 import main.java.ru.practicum.tasktracker.managers.TaskManager;
@@ -98,4 +101,85 @@ public class EpicTests {
         assertEquals(Status.IN_PROGRESS, epic.getStatus(),
                 "Статус эпика, содержащего только подзадачи со статусом IN_PROGRESS, должен быть IN_PROGRESS");
     }
+
+    @Test
+    void testEpicSubtaskIdsAreUniqueAndSorted() {
+        Epic epic = new Epic(1, "Эпик", "Описание", Status.NEW);
+        epic.addSubtaskId(5);
+        epic.addSubtaskId(3);
+        epic.addSubtaskId(5);
+        epic.addSubtaskId(4);
+        epic.removeSubtaskId(3);
+
+        assertEquals(List.of(4, 5), epic.getSubtaskIds(),
+                "ID подзадач не должны повторяться и должны храниться по возрастанию.");
+        assertEquals(2, epic.getSubtaskCount(), "Эпик должен содержать две подзадачи.");
+        assertTrue(epic.containsSubtaskId(4), "Эпик должен содержать подзадачу 4.");
+        assertFalse(epic.containsSubtaskId(3), "Удаленная подзадача не должна оставаться в эпике.");
+    }
+
+    @Test
+    void testEpicStatusFollowsSubtaskUpdatesAndDeletes() {
+        Epic epic = new Epic("Эпик", "Описание");
+        Epic otherEpic = new Epic("Другой эпик", "Описание");
+        taskManager.createEpic(epic);
+        taskManager.createEpic(otherEpic);
+
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание 1", epic.getId());
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание 2", epic.getId());
+        taskManager.createSubtask(subtask1);
+        taskManager.createSubtask(subtask2);
+
+        subtask1.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask1);
+        assertEquals(Status.IN_PROGRESS, epic.getStatus(),
+                "Статус эпика с подзадачами NEW и DONE должен быть IN_PROGRESS");
+
+        subtask2.setEpicId(otherEpic.getId());
+        taskManager.updateSubtask(subtask2);
+        assertEquals(Status.DONE, epic.getStatus(),
+                "После переноса подзадачи NEW в другой эпик статус эпика должен быть DONE");
+        assertEquals(Status.NEW, otherEpic.getStatus(),
+                "Статус эпика, получившего подзадачу NEW, должен быть NEW");
+
+        taskManager.deleteSubtask(subtask1.getId());
+        assertEquals(Status.NEW, epic.getStatus(), "Статус эпика без подзадач должен быть NEW");
+    }
+
+    @Test
+    void testEpicTimesFollowSubtaskUpdatesAndDeletes() {
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createEpic(epic);
+
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание 1", Duration.ofHours(1),
+                startTime, epic.getId());
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание 2", Duration.ofHours(2),
+                startTime.plusHours(3), epic.getId());
+        taskManager.createSubtask(subtask1);
+        taskManager.createSubtask(subtask2);
+
+        assertEquals(startTime, epic.getStartTime(), "Начало эпика - начало первой подзадачи.");
+        assertEquals(startTime.plusHours(5), epic.getEndTime(),
+                "Окончание эпика - окончание последней подзадачи.");
+        assertEquals(Duration.ofHours(3), epic.getDuration(),
+                "Длительность эпика - сумма длительностей подзадач.");
+
+        subtask2.setDuration(Duration.ofHours(4));
+        taskManager.updateSubtask(subtask2);
+        assertEquals(startTime.plusHours(7), epic.getEndTime(),
+                "Окончание эпика должно пересчитываться при обновлении подзадачи.");
+        assertEquals(Duration.ofHours(5), epic.getDuration(),
+                "Длительность эпика должна пересчитываться при обновлении подзадачи.");
+
+        taskManager.deleteSubtask(subtask1.getId());
+        assertEquals(startTime.plusHours(3), epic.getStartTime(),
+                "Начало эпика должно пересчитываться при удалении подзадачи.");
+        assertEquals(Duration.ofHours(4), epic.getDuration(),
+                "Длительность эпика должна пересчитываться при удалении подзадачи.");
+
+        taskManager.deleteSubtask(subtask2.getId());
+        assertNull(epic.getStartTime(), "У эпика без подзадач нет времени начала.");
+        assertEquals(Duration.ZERO, epic.getDuration(), "Длительность эпика без подзадач - 0.");
+    }
 }
@@ -4,7 +4,9 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.enums.TaskType;
 import main.java.ru.practicum.tasktracker.exceptions.OverlapException;
+import main.java.ru.practicum.tasktracker.exceptions.TransactionException;
 import main.java.ru.practicum.tasktracker.managers.InMemoryTaskManager;
 import main.java.ru.practicum.tasktracker.managers.TaskManager;
 import main.java.ru.practicum.tasktracker.tasks.*;
@@ -238,4 +240,306 @@ public class InMemoryTaskManagerTests {
         assertThrows(OverlapException.class, () -> taskManager.createSubtask(subtask2),
                 "Задача пересекается по времени с другой задачей");
     }
+
+    @Test
+    void testPrioritizedTasksWithSameStartTime() {
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+        Task task1 = new Task("Задача 1", "Описание 1", Duration.ZERO, startTime);
+        Task task2 = new Task("Задача 2", "Описание 2", Duration.ZERO, startTime);
+        taskManager.createTask(task1);
+        taskManager.createTask(task2);
+
+        assertEquals(List.of(task1, task2), taskManager.getPrioritizedTasks(),
+                "Задачи с одинаковым временем начала должны упорядочиваться по ID.");
+    }
+
+    @Test
+    void testPrioritizedTasksAfterUpdateAndDelete() {
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+        Task task = new Task("Задача", "Описание", Duration.ofHours(1), startTime);
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createTask(task);
+        taskManager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", Duration.ofHours(1),
+                startTime.plusHours(2), epic.getId());
+        taskManager.createSubtask(subtask);
+
+        task.setStartTime(startTime.plusHours(4));
+        taskManager.updateTask(task);
+        assertEquals(List.of(subtask, task), taskManager.getPrioritizedTasks(),
+                "Обновленная задача должна переместиться в списке по времени начала.");
+
+        taskManager.deleteEpic(epic.getId());
+        assertEquals(List.of(task), taskManager.getPrioritizedTasks(),
+                "Подзадачи удаленного эпика не должны оставаться в списке.");
+
+        taskManager.deleteTasks();
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty(),
+                "После удаления всех задач список должен быть пустым.");
+    }
+
+    @Test
+    void testAdjacentTasksDoNotOverlap() {
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+        Task task1 = new Task("Задача 1", "Описание 1", Duration.ofHours(1), startTime);
+        Task task2 = new Task("Задача 2", "Описание 2", Duration.ofHours(1),
+                startTime.plusHours(1));
+        Task task3 = new Task("Задача 3", "Описание 3", Duration.ofHours(1),
+                startTime.plusHours(2));
+        taskManager.createTask(task1);
+        taskManager.createTask(task3);
+
+        assertDoesNotThrow(() -> taskManager.createTask(task2),
+                "Задачи, идущие встык, не должны пересекаться.");
+
+        task2.setDuration(Duration.ofMinutes(30));
+        assertDoesNotThrow(() -> taskManager.updateTask(task2),
+                "Задача не должна пересекаться сама с собой при обновлении.");
+
+        task2.setStartTime(startTime.minusMinutes(15));
+        assertThrows(OverlapException.class, () -> taskManager.updateTask(task2),
+                "Задача пересекается по времени с другой задачей");
+    }
+
+    @Test
+    void testTasksByStatus() {
+        Task task = new Task("Задача", "Описание");
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createTask(task);
+        taskManager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId());
+        taskManager.createSubtask(subtask);
+
+        assertEquals(List.of(task, epic, subtask), taskManager.getTasksByStatus(Status.NEW),
+                "Задачи всех типов должны возвращаться по возрастанию ID.");
+        assertEquals(List.of(subtask),
+                taskManager.getTasksByStatus(Status.NEW, TaskType.SUBTASK),
+                "Выборка по типу должна содержать только задачи этого типа.");
+
+        subtask.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask);
+        assertEquals(List.of(epic, subtask), taskManager.getTasksByStatus(Status.DONE),
+                "Эпик должен переместиться в индексе вместе с изменением статуса.");
+        assertEquals(1, taskManager.countByStatus(Status.NEW),
+                "Количество задач по статусу должно учитывать обновления.");
+
+        taskManager.deleteSubtask(subtask.getId());
+        assertEquals(List.of(task, epic), taskManager.getTasksByStatus(Status.NEW),
+                "Эпик без подзадач должен вернуться в статус NEW.");
+
+        taskManager.deleteEpic(epic.getId());
+        taskManager.deleteTasks();
+        for (Status status : Status.values()) {
+            assertEquals(0, taskManager.countByStatus(status),
+                    "После удаления всех задач индекс статусов должен быть пустым.");
+        }
+    }
+
+    @Test
+    void testPrioritizedTasksInRange() {
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1).withNano(0);
+        Task task1 = new Task("Задача 1", "Описание 1", Duration.ofHours(2), startTime);
+        Task task2 = new Task("Задача 2", "Описание 2", Duration.ZERO, startTime.plusHours(3));
+        Task task3 = new Task("Задача 3", "Описание 3", Duration.ofHours(1),
+                startTime.plusHours(4));
+        taskManager.createTask(task1);
+        taskManager.createTask(task2);
+        taskManager.createTask(task3);
+
+        assertEquals(List.of(task1, task2),
+                taskManager.getPrioritizedTasks(startTime.plusHours(1), startTime.plusHours(4)),
+                "В интервал должны попасть начатая ранее задача и задачи, начатые в интервале.");
+        assertEquals(List.of(task2, task3),
+                taskManager.getPrioritizedTasks(startTime.plusHours(2), null),
+                "Задача, завершенная к началу интервала, не должна попадать в выборку.");
+        assertEquals(List.of(task1),
+                taskManager.getPrioritizedTasks(null, startTime.plusHours(3)),
+                "Задача, начинающаяся в конце интервала, не должна попадать в выборку.");
+
+        assertEquals(List.of(task2, task3), taskManager.getNextTasks(startTime.plusHours(1), 5),
+                "Следующие задачи должны начинаться не раньше указанного момента.");
+        assertEquals(List.of(task1), taskManager.getNextTasks(startTime, 1),
+                "Количество следующих задач должно быть ограничено.");
+
+        assertEquals(List.of(task1), taskManager.getActiveTasks(startTime.plusHours(1)),
+                "Задача должна быть активной до момента завершения.");
+        assertEquals(List.of(task3), taskManager.getActiveTasks(startTime.plusHours(4)),
+                "Задача должна быть активной в момент начала.");
+        assertTrue(taskManager.getActiveTasks(startTime.plusHours(3)).isEmpty(),
+                "Задача нулевой длительности не должна считаться активной.");
+    }
+
+    @Test
+    void testPrioritizedTasksInRangeByPages() {
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1).withNano(0);
+        Task task1 = new Task("Задача 1", "Описание 1", Duration.ofHours(2), startTime);
+        Task task2 = new Task("Задача 2", "Описание 2", Duration.ZERO, startTime.plusHours(3));
+        Task task3 = new Task("Задача 3", "Описание 3", Duration.ofHours(1),
+                startTime.plusHours(4));
+        Task task4 = new Task("Задача 4", "Описание 4", Duration.ofHours(1),
+                startTime.plusHours(5));
+        taskManager.createTasks(List.of(task1, task2, task3, task4));
+        LocalDateTime from = startTime.plusHours(1);
+        LocalDateTime to = startTime.plusHours(5);
+
+        assertEquals(List.of(task1, task2), taskManager.getPrioritizedTasks(from, to, 0, 2),
+                "Первая страница должна начинаться с задачи, начатой до интервала.");
+        assertEquals(List.of(task2), taskManager.getPrioritizedTasks(from, to, task1.getId(), 1),
+                "Страница после начатой до интервала задачи должна идти с начала интервала.");
+        assertEquals(List.of(task3), taskManager.getPrioritizedTasks(from, to, task2.getId(), 2),
+                "Страница должна продолжаться с задачи, следующей за курсором.");
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.getPrioritizedTasks(from, to, task4.getId(), 2),
+                "Курсор вне выборки по интервалу должен отклоняться.");
+        assertTrue(taskManager.getPrioritizedTasks(to, from, 0, 2).isEmpty(),
+                "Страница интервала, где начало позже конца, должна быть пустой.");
+    }
+
+    @Test
+    void testPrioritizedTasksInInvertedRange() {
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1).withNano(0);
+        taskManager.createTask(new Task("Задача 1", "Описание 1", Duration.ofHours(2),
+                startTime));
+        taskManager.createTask(new Task("Задача 2", "Описание 2", Duration.ofHours(1),
+                startTime.plusHours(3)));
+
+        assertTrue(taskManager.getPrioritizedTasks(startTime.plusHours(1), startTime).isEmpty(),
+                "Выборка по интервалу, где начало позже конца, должна быть пустой.");
+    }
+
+    @Test
+    void testPagedLists() {
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+        Task task1 = new Task("Задача 1", "Описание 1", Duration.ofHours(1),
+                startTime.plusHours(2));
+        Task task2 = new Task("Задача 2", "Описание 2", Duration.ofHours(1), startTime);
+        Task task3 = new Task("Задача 3", "Описание 3");
+        taskManager.createTask(task1);
+        taskManager.createTask(task2);
+        taskManager.createTask(task3);
+
+        assertEquals(List.of(task1, task2), taskManager.getTasks(0, 2),
+                "Первая страница должна начинаться с наименьшего ID.");
+        assertEquals(List.of(task3), taskManager.getTasks(task2.getId(), 2),
+                "Следующая страница должна начинаться после курсора.");
+        taskManager.deleteTask(task2.getId());
+        assertEquals(List.of(task3), taskManager.getTasks(task2.getId(), 2),
+                "Удаление задачи-курсора не должно нарушать выдачу.");
+
+        taskManager.createTask(task2);
+        assertEquals(List.of(task1), taskManager.getPrioritizedTasks(task2.getId(), 5),
+                "Страница по приоритету должна следовать за курсором по времени начала.");
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.getPrioritizedTasks(task3.getId(), 5),
+                "Задача без времени начала не может быть курсором списка по приоритету.");
+
+        taskManager.getTask(task3.getId());
+        taskManager.getTask(task1.getId());
+        taskManager.getTask(task2.getId());
+        assertEquals(List.of(task1), taskManager.getHistory(task3.getId(), 1),
+                "Страница истории должна следовать за курсором в порядке просмотра.");
+    }
+
+    @Test
+    void testBatchOperations() {
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+        Task task1 = new Task("Задача 1", "Описание 1", Duration.ofHours(1), startTime);
+        Task task2 = new Task("Задача 2", "Описание 2", Duration.ofHours(1),
+                startTime.plusHours(1));
+        Task conflicting = new Task("Задача 3", "Описание 3", Duration.ofHours(1),
+                startTime.plusMinutes(30));
+
+        assertThrows(OverlapException.class,
+                () -> taskManager.createTasks(List.of(task1, task2, conflicting)),
+                "Пересечение внутри пакета должно обнаруживаться.");
+        assertTrue(taskManager.getTasks().isEmpty(),
+                "При ошибке проверки не должна применяться ни одна задача пакета.");
+
+        taskManager.createTasks(List.of(task1, task2));
+        task1.setStartTime(startTime.plusHours(1));
+        task2.setStartTime(startTime);
+        assertDoesNotThrow(() -> taskManager.updateTasks(List.of(task1, task2)),
+                "Задачи пакета должны иметь возможность обменяться временем.");
+        assertEquals(List.of(task2, task1), taskManager.getPrioritizedTasks(),
+                "Пакетное обновление должно перестроить список по приоритету.");
+
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createEpics(List.of(epic));
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание", epic.getId());
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание", epic.getId());
+        taskManager.createSubtasks(List.of(subtask1, subtask2));
+        subtask1.setStatus(Status.DONE);
+        subtask2.setStatus(Status.DONE);
+        taskManager.updateSubtasks(List.of(subtask1, subtask2));
+        assertEquals(Status.DONE, taskManager.getEpic(epic.getId()).getStatus(),
+                "Статус эпика должен учитывать пакетное обновление подзадач.");
+
+        assertEquals(1, taskManager.deleteSubtasks(List.of(subtask1.getId(), task1.getId())),
+                "Должна быть удалена только подзадача.");
+        assertEquals(2, taskManager.deleteTasks(List.of(task1.getId(), task2.getId())),
+                "Должны быть удалены обе задачи.");
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty(),
+                "Удаленные задачи не должны оставаться в списке по приоритету.");
+        assertEquals(List.of(subtask2), taskManager.getEpicSubtasks(epic.getId()),
+                "У эпика должна остаться одна подзадача.");
+
+        taskManager.getSubtask(subtask2.getId());
+        assertEquals(0, taskManager.deleteTasks(List.of(epic.getId(), subtask2.getId())),
+                "Эпик и подзадача не должны удаляться как задачи.");
+        assertEquals(List.of(epic, subtask2), taskManager.getHistory(),
+                "Неудаленные эпик и подзадача должны остаться в истории.");
+    }
+
+    @Test
+    void testTransaction() {
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+        Task task = new Task("Задача", "Описание", Duration.ofHours(1), startTime);
+        Epic epic1 = new Epic("Эпик 1", "Описание");
+        Epic epic2 = new Epic("Эпик 2", "Описание");
+        taskManager.createTask(task);
+        taskManager.createEpic(epic1);
+        taskManager.createEpic(epic2);
+        Subtask subtask = new Subtask("Подзадача", "Описание", Duration.ofHours(1),
+                startTime.plusHours(2), epic1.getId());
+        taskManager.createSubtask(subtask);
+
+        // Подзадача переносится во второй эпик и занимает время удаляемой задачи
+        Subtask moved = new Subtask(subtask.getId(), "Подзадача", "Описание", Status.DONE,
+                Duration.ofHours(1), startTime, epic2.getId());
+        taskManager.inTransaction(tx -> {
+            tx.updateSubtask(moved);
+            tx.deleteTask(task.getId());
+        });
+
+        assertTrue(taskManager.getTasks().isEmpty(), "Задача должна быть удалена.");
+        assertTrue(taskManager.getEpicSubtasks(epic1.getId()).isEmpty(),
+                "Подзадача должна быть удалена из первого эпика.");
+        assertEquals(List.of(moved), taskManager.getEpicSubtasks(epic2.getId()),
+                "Подзадача должна быть перенесена во второй эпик.");
+        assertEquals(Status.DONE, taskManager.getEpic(epic2.getId()).getStatus(),
+                "Статус эпика должен быть пересчитан.");
+
+        Task conflicting = new Task("Задача 2", "Описание", Duration.ofHours(1),
+                startTime.plusMinutes(30));
+        assertThrows(OverlapException.class, () -> taskManager.inTransaction(tx -> {
+            tx.deleteEpic(epic1.getId());
+            tx.createTask(conflicting);
+        }), "Пересечение должно проверяться при фиксации транзакции.");
+        assertNotNull(taskManager.getEpic(epic1.getId()),
+                "При ошибке не должна применяться ни одна операция транзакции.");
+
+        Subtask orphan = new Subtask("Подзадача 2", "Описание", epic1.getId());
+        assertThrows(TransactionException.class, () -> taskManager.inTransaction(tx -> {
+            tx.deleteEpic(epic1.getId());
+            tx.createSubtask(orphan);
+        }), "Подзадача не может ссылаться на удаляемый эпик.");
+        assertTrue(taskManager.getSubtasks().contains(moved),
+                "Подзадачи должны остаться без изменений.");
+
+        taskManager.inTransaction(tx -> tx.deleteEpic(epic2.getId()));
+        assertTrue(taskManager.getSubtasks().isEmpty(),
+                "Подзадачи удаленного эпика должны быть удалены.");
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty(),
+                "Список по приоритету должен быть пустым.");
+    }
 }
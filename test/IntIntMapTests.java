@@ -0,0 +1,49 @@
+package test;
+
+import main.java.ru.practicum.tasktracker.collections.IntIntMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntIntMapTests {
+
+    private IntIntMap map;
+
+    @BeforeEach
+    void setUp() {
+        map = new IntIntMap();
+    }
+
+    @Test
+    void testPutGetAndRemove() {
+        assertEquals(IntIntMap.MISSING, map.put(1, 0),
+                "Для нового ключа предыдущего значения быть не должно.");
+        assertEquals(0, map.put(1, 7),
+                "Для существующего ключа должно возвращаться предыдущее значение.");
+        assertEquals(7, map.get(1), "Значение должно быть заменено.");
+
+        assertEquals(7, map.remove(1), "Удаление должно вернуть значение.");
+        assertEquals(IntIntMap.MISSING, map.get(1), "После удаления значения быть не должно.");
+        assertTrue(map.isEmpty(), "Таблица должна быть пустой.");
+        assertThrows(IllegalArgumentException.class, () -> map.put(2, -5),
+                "Отрицательные значения не должны приниматься.");
+    }
+
+    @Test
+    void testGrowAndRemoveWithCollisions() {
+        // Ключи с шагом 1 << 16 попадают в одну цепочку пробирования
+        for (int i = 0; i < 1000; i++) {
+            map.put(i << 16, i);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            map.remove(i << 16);
+        }
+
+        assertEquals(500, map.size(), "Должно остаться 500 записей.");
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 0 ? IntIntMap.MISSING : i, map.get(i << 16),
+                    "Удаление не должно нарушать поиск оставшихся ключей.");
+        }
+    }
+}
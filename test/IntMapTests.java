@@ -0,0 +1,63 @@
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+import main.java.ru.practicum.tasktracker.collections.IntMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntMapTests {
+
+    private IntMap<String> map;
+
+    @BeforeEach
+    void setUp() {
+        map = new IntMap<>();
+    }
+
+    @Test
+    void testPutGetAndRemove() {
+        assertNull(map.put(1, "Первый"), "Для нового ключа предыдущего значения быть не должно.");
+        assertEquals("Первый", map.put(1, "Первый*"),
+                "Для существующего ключа должно возвращаться предыдущее значение.");
+        assertEquals("Первый*", map.get(1), "Значение должно быть заменено.");
+
+        assertEquals("Первый*", map.remove(1), "Удаление должно вернуть значение.");
+        assertNull(map.get(1), "После удаления значения быть не должно.");
+        assertTrue(map.isEmpty(), "Таблица должна быть пустой.");
+    }
+
+    @Test
+    void testGrowAndRemoveWithCollisions() {
+        // Ключи с шагом 1 << 16 попадают в одну цепочку пробирования
+        for (int i = 0; i < 1000; i++) {
+            map.put(i << 16, "Значение " + i);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            map.remove(i << 16);
+        }
+
+        assertEquals(500, map.size(), "Должно остаться 500 записей.");
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 0 ? null : "Значение " + i, map.get(i << 16),
+                    "Удаление не должно нарушать поиск оставшихся ключей.");
+        }
+    }
+
+    @Test
+    void testIterationOrderOfSequentialKeys() {
+        for (int i = 1; i <= 5; i++) {
+            map.put(i, "Значение " + i);
+        }
+
+        List<Integer> keys = new ArrayList<>();
+        map.forEachKey(keys::add);
+
+        assertEquals(List.of(1, 2, 3, 4, 5), keys,
+                "Последовательные ключи должны обходиться по возрастанию.");
+        assertEquals("Значение 1", map.values().iterator().next(),
+                "Значения должны обходиться в порядке ключей.");
+    }
+}
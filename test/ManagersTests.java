@@ -1,8 +1,12 @@
 package test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import main.java.ru.practicum.tasktracker.exceptions.OverlapException;
 import main.java.ru.practicum.tasktracker.managers.HistoryManager;
 import main.java.ru.practicum.tasktracker.managers.Managers;
 import main.java.ru.practicum.tasktracker.managers.TaskManager;
+import main.java.ru.practicum.tasktracker.tasks.Task;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,4 +25,20 @@ public class ManagersTests {
         assertNotNull(historyManager, "Должен возвращаться объект HistoryManager.");
     }
 
+    @Test
+    void testCalendarTaskManagerOverlaps() {
+        TaskManager taskManager = Managers.getCalendarTaskManager(15);
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 23, 0);
+        taskManager.createTask(new Task("Задача 1", "Описание 1", Duration.ofHours(2), startTime));
+
+        assertDoesNotThrow(() -> taskManager.createTask(new Task("Задача 2", "Описание 2",
+                        Duration.ofMinutes(15), startTime.plusHours(2))),
+                "Задачи, идущие встык, не должны пересекаться.");
+        assertThrows(OverlapException.class, () -> taskManager.createTask(new Task("Задача 3",
+                        "Описание 3", Duration.ofMinutes(15), startTime.plusMinutes(90))),
+                "Задача пересекается по времени с другой задачей");
+        assertThrows(IllegalArgumentException.class, () -> taskManager.createTask(new Task(
+                        "Задача 4", "Описание 4", Duration.ofMinutes(15), startTime.minusMinutes(7))),
+                "Время задачи должно быть выровнено по сетке слотов");
+    }
 }
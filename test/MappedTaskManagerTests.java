@@ -0,0 +1,129 @@
+package test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import main.java.ru.practicum.tasktracker.enums.Status;
+import main.java.ru.practicum.tasktracker.exceptions.ManagerLoadException;
+import main.java.ru.practicum.tasktracker.exceptions.OverlapException;
+import main.java.ru.practicum.tasktracker.managers.MappedTaskManager;
+import main.java.ru.practicum.tasktracker.tasks.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedTaskManagerTests extends InMemoryTaskManagerTests {
+
+    private File tempFile;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            tempFile = File.createTempFile("tasktracker", ".tks");
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось создать временный файл: " + e.getMessage());
+        }
+        tempFile.deleteOnExit();
+        new File(tempFile.getPath() + ".heap.0").deleteOnExit();
+        taskManager = new MappedTaskManager(tempFile);
+    }
+
+    @Test
+    void testReopenRestoresTasks() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0, 15, 500);
+        Task task = new Task("Задача, с запятой", null, Duration.ofMinutes(30), start);
+        Epic epic = new Epic("Эпик", "Описание\nв две строки");
+        taskManager.createTask(task);
+        taskManager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", Duration.ofMinutes(45),
+                start.plusHours(1), epic.getId());
+        taskManager.createSubtask(subtask);
+        subtask.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask);
+        ((MappedTaskManager) taskManager).close();
+
+        MappedTaskManager reopened = new MappedTaskManager(tempFile);
+        Task loadedTask = reopened.getTask(task.getId());
+        assertEquals(task.getTitle(), loadedTask.getTitle(), "Название должно сохраниться.");
+        assertNull(loadedTask.getDescription(), "Пустое описание должно остаться null.");
+        assertEquals(start, loadedTask.getStartTime(), "Время начала должно сохраниться точно.");
+        assertEquals(epic.getDescription(), reopened.getEpic(epic.getId()).getDescription(),
+                "Перевод строки в описании должен сохраниться.");
+        assertEquals(Status.DONE, reopened.getEpic(epic.getId()).getStatus(),
+                "Статус эпика должен рассчитываться по подзадачам.");
+        assertEquals(List.of(task, subtask), reopened.getPrioritizedTasks(),
+                "Задачи должны быть упорядочены по времени начала.");
+        assertThrows(OverlapException.class, () -> reopened.createTask(new Task("Новая",
+                        "Описание", Duration.ofMinutes(30), start.plusMinutes(10))),
+                "Пересечение с загруженной задачей должно обнаруживаться.");
+        reopened.close();
+    }
+
+    @Test
+    void testDeletesArePersisted() {
+        Task task = new Task("Задача", "Описание");
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createTask(task);
+        taskManager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId());
+        taskManager.createSubtask(subtask);
+        Epic keptEpic = new Epic("Оставшийся эпик", "Описание");
+        taskManager.inTransaction(transaction -> {
+            transaction.deleteEpic(epic.getId());
+            transaction.createEpic(keptEpic);
+        });
+        taskManager.deleteTasks();
+        Task newTask = new Task("Новая задача", "Описание");
+        taskManager.createTask(newTask);
+        ((MappedTaskManager) taskManager).close();
+
+        MappedTaskManager reopened = new MappedTaskManager(tempFile);
+        assertEquals(List.of(newTask), reopened.getTasks(), "Должна остаться только новая задача.");
+        assertEquals(List.of(keptEpic), reopened.getEpics(),
+                "Удаленный в транзакции эпик не должен восстанавливаться.");
+        assertTrue(reopened.getSubtasks().isEmpty(),
+                "Подзадачи удаленного эпика не должны восстанавливаться.");
+        reopened.close();
+    }
+
+    @Test
+    void testUpdatesAreWrittenInPlace() throws IOException {
+        Task task = new Task("Задача", "Описание");
+        taskManager.createTask(task);
+        long length = tempFile.length();
+        String description = "Описание ".repeat(100);
+        for (int i = 0; i < 200; i++) {
+            task.setDescription(description + i);
+            taskManager.updateTask(task);
+        }
+        assertEquals(length, tempFile.length(), "Обновления не должны добавлять записи.");
+        ((MappedTaskManager) taskManager).close();
+
+        // Устаревшие описания занимают почти всю кучу, поэтому при открытии она переписывается
+        MappedTaskManager reopened = new MappedTaskManager(tempFile);
+        File oldHeap = new File(tempFile.getPath() + ".heap.0");
+        File newHeap = new File(tempFile.getPath() + ".heap.1");
+        newHeap.deleteOnExit();
+        assertFalse(oldHeap.exists(), "Прежняя куча должна удаляться после переписывания.");
+        assertTrue(newHeap.exists(), "Должна появиться куча нового поколения.");
+        assertEquals(description + 199, reopened.getTask(task.getId()).getDescription(),
+                "Должно сохраниться последнее описание.");
+        reopened.close();
+
+        assertEquals(description + 199, new MappedTaskManager(tempFile).getTask(task.getId())
+                .getDescription(), "Переписанное хранилище должно открываться повторно.");
+    }
+
+    @Test
+    void testWrongFileFormat() throws IOException {
+        ((MappedTaskManager) taskManager).close();
+        Files.writeString(tempFile.toPath(), "id,type,name\n".repeat(10), StandardCharsets.UTF_8);
+        assertThrows(ManagerLoadException.class, () -> new MappedTaskManager(tempFile),
+                "Файл другого формата не должен открываться.");
+    }
+}
@@ -115,6 +115,30 @@ public class TaskHandlerTests {
                 "Некорректное имя второй задачи");
     }
 
+    @Test
+    public void testGetTasksPage() throws IOException, InterruptedException {
+        createTestTask("Задача 1", "Описание задачи 1", Duration.ofHours(1),
+                LocalDateTime.now().plusDays(1));
+        Task task2 = createTestTask("Задача 2", "Описание задачи 2", Duration.ofHours(1),
+                LocalDateTime.now().plusDays(2));
+        Task task3 = createTestTask("Задача 3", "Описание задачи 3", Duration.ofHours(1),
+                LocalDateTime.now().plusDays(3));
+        createTestTask("Задача 4", "Описание задачи 4", Duration.ofHours(1),
+                LocalDateTime.now().plusDays(4));
+
+        HttpResponse<String> response = sendGetRequest(
+                "http://localhost:8080/tasks?limit=2&after=" + task2.getId());
+        assertEquals(200, response.statusCode(), "Не удалось получить страницу задач");
+
+        JsonArray tasksArray = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(2, tasksArray.size(), "Некорректный размер страницы");
+        assertEquals(task3.getId(), tasksArray.get(0).getAsJsonObject().get("id").getAsInt(),
+                "Страница должна начинаться с задачи, следующей за курсором");
+
+        response = sendGetRequest("http://localhost:8080/tasks?limit=0");
+        assertEquals(400, response.statusCode(), "Некорректный размер страницы не отклонен");
+    }
+
     @Test
     public void testUpdateTask() throws IOException, InterruptedException {
         Task task = createTestTask("Задача 1", "Описание задачи 1", Duration.ofHours(1),